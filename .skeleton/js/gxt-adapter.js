@@ -1,5 +1,9 @@
 
 var registeredCharts = {}
+// for each chart id the callback notified of the zooms (see watchChartZoom)
+var zoomWatchers = {}
+// the milliseconds the x range must stay still before notifying it
+var ZOOM_DELAY = 150
 
 /*
  * useParent (bool) if the resize is applied from the main widget or from
@@ -7,8 +11,49 @@ var registeredCharts = {}
  */
 function registerChart(param, useParent) {
 	var paramid = String(param.id);
+	// a chart rendered again replaces the previous instance
+	var previous = registeredCharts[paramid];
+	if (previous != null && previous != param) {
+		destroyChart(paramid);
+	}
 	registeredCharts[paramid] = param;
 	setUseParent(param.id, useParent);
+	attachZoomWatcher(param);
+}
+
+/*
+ * Unregisters a chart and releases its resources
+ * (SVG/DOM elements and event handlers).
+ * Returns false if the chart was not registered.
+ */
+function destroyChart(chartId) {
+	var chart = getChartById(chartId);
+	if (chart == null) {
+		return false;
+	}
+	delete registeredCharts[String(chartId)];
+	chart.parentContainer = null;
+	if (chart.destroy != null) {
+		try {
+			chart.destroy();
+		} catch (e) {
+			// the container has been already removed from the page
+		}
+	}
+	return true;
+}
+
+/*
+ * The number of charts currently registered (for monitoring).
+ */
+function getRegisteredChartsCount() {
+	var count = 0;
+	for (var key in registeredCharts) {
+		if (registeredCharts.hasOwnProperty(key)) {
+			count++;
+		}
+	}
+	return count;
 }
 
 /*
@@ -51,29 +96,289 @@ function getChartById(variable){
 }
 
 /*
+ * The size the chart must have inside its parent.
+ * Only reads the layout (i.e. no style is changed).
  * The parent can be either param.container or document.documentElement
  */
+function getChartSize(param, widthOffset, heightOffset) {
+	var swidth = param.parentContainer.clientWidth;
+	var sheight =  param.parentContainer.clientHeight;
+
+	// The first time the size of the chart must be explicitly expressed
+	if (widthOffset == null || widthOffset == -1) {
+		swidth = param.parentContainer.clientWidth - param.widthOffset;
+	} else {
+		swidth = param.parentContainer.clientWidth - widthOffset;
+	}
+
+	if (heightOffset == null || heightOffset == -1) {
+		sheight =  param.parentContainer.clientHeight - param.heightOffset;
+	} else {
+		sheight =  param.parentContainer.clientHeight - heightOffset;
+	}
+	return [swidth, sheight];
+}
+
+function applyChartSize(param, size) {
+	param.setSize(size[0], size[1], 1);
+	if (param.legend != null && param.legend.renderLegend != null) {
+		param.legend.renderLegend();
+	}
+}
+
 function resizeChart(chartID, widthOffset, heightOffset) {
 	var param = getChartById(chartID);
 	if (param != null) {
-		var swidth = param.parentContainer.clientWidth;
-		var sheight =  param.parentContainer.clientHeight;
-		
-		// The first time the size of the chart must be explicitly expressed
-		if (widthOffset == null || widthOffset == -1) {
-			swidth = param.parentContainer.clientWidth - param.widthOffset;
-		} else {
-			swidth = param.parentContainer.clientWidth - widthOffset;
+		applyChartSize(param, getChartSize(param, widthOffset, heightOffset));
+	}
+}
+
+/*
+ * Resizes a batch of charts.
+ * The sizes of all the containers are read before changing any chart,
+ * so that the browser computes the layout only once.
+ */
+function resizeCharts(chartIDs, widthOffsets, heightOffsets) {
+	var charts = [];
+	var sizes = [];
+	for (var i = 0; i < chartIDs.length; i++) {
+		var param = getChartById(chartIDs[i]);
+		if (param != null) {
+			charts.push(param);
+			sizes.push(getChartSize(param, widthOffsets[i], heightOffsets[i]));
 		}
-		
-		if (heightOffset == null || heightOffset == -1) {
-			sheight =  param.parentContainer.clientHeight - param.heightOffset;
-		} else {
-			sheight =  param.parentContainer.clientHeight - heightOffset;
+	}
+	for (var i = 0; i < charts.length; i++) {
+		applyChartSize(charts[i], sizes[i]);
+	}
+}
+
+/*
+ * Executes the callback at next repaint of the browser
+ * (or as soon as possible if animation frames are not supported).
+ */
+function requestChartFrame(callback) {
+	var request = window.requestAnimationFrame || window.webkitRequestAnimationFrame
+		|| window.mozRequestAnimationFrame || window.msRequestAnimationFrame;
+	if (request != null) {
+		return request.call(window, callback);
+	}
+	return window.setTimeout(callback, 16);
+}
+
+/*
+ * Incremental updates.
+ * All the functions below return true if the update has been applied
+ * to the registered chart, false otherwise (e.g. the chart is not
+ * registered yet). In that case the caller will render again the chart.
+ */
+
+/*
+ * Retrieves the series at the given position of a registered chart.
+ */
+function getChartSeries(chartID, seriesIndex) {
+	var chart = getChartById(chartID);
+	if (chart == null || chart.series == null) {
+		return null;
+	}
+	return chart.series[seriesIndex];
+}
+
+/*
+ * points: array of points (in any format accepted by highcharts).
+ * shift: if true for each added point the first one of the series is removed,
+ * if a number only the points starting from that position remove the first
+ * one (e.g. series with a window that gets full during the batch).
+ */
+function addChartPoints(chartID, seriesIndex, points, redraw, shift) {
+	var series = getChartSeries(chartID, seriesIndex);
+	if (series == null) {
+		return false;
+	}
+	var shiftFrom = (typeof shift == 'number') ? shift : (shift ? 0 : points.length);
+	for (var i = 0; i < points.length; i++) {
+		series.addPoint(points[i], false, i >= shiftFrom);
+	}
+	if (redraw) {
+		series.chart.redraw();
+	}
+	return true;
+}
+
+function setChartData(chartID, seriesIndex, data, redraw) {
+	var series = getChartSeries(chartID, seriesIndex);
+	if (series == null) {
+		return false;
+	}
+	series.setData(data, redraw);
+	return true;
+}
+
+function updateChartPoint(chartID, seriesIndex, pointIndex, point, redraw) {
+	var series = getChartSeries(chartID, seriesIndex);
+	if (series == null || series.data == null || series.data[pointIndex] == null) {
+		return false;
+	}
+	series.data[pointIndex].update(point, redraw);
+	return true;
+}
+
+function removeChartSeries(chartID, seriesIndex, redraw) {
+	var series = getChartSeries(chartID, seriesIndex);
+	if (series == null) {
+		return false;
+	}
+	series.remove(redraw);
+	return true;
+}
+
+/*
+ * Applies a batch of changes computed by ChartDiff (see UpdatePlan)
+ * redrawing the chart only once.
+ * Returns false as soon as a change cannot be applied (e.g. options
+ * that this version of highcharts cannot update), in that case the
+ * chart will be rendered again.
+ */
+function applyChartUpdates(chartID, steps) {
+	var chart = getChartById(chartID);
+	if (chart == null) {
+		return false;
+	}
+	for (var i = 0; i < steps.length; i++) {
+		if (!applyChartUpdate(chart, steps[i])) {
+			return false;
+		}
+	}
+	chart.redraw();
+	return true;
+}
+
+function applyChartUpdate(chart, step) {
+	var series = (typeof step.series == 'number' && chart.series != null) ? chart.series[step.series] : null;
+	switch (step.op) {
+	case 'section':
+		return updateChartSection(chart, step.key, step.options);
+	case 'add':
+		chart.addSeries(step.options, false);
+		return true;
+	case 'remove':
+		if (series == null) {
+			return false;
+		}
+		series.remove(false);
+		return true;
+	case 'append':
+		if (series == null) {
+			return false;
 		}
-		param.setSize(swidth, sheight, 1);
-		if (param.legend != null && param.legend.renderLegend != null) {
-			param.legend.renderLegend();
+		for (var i = 0; i < step.points.length; i++) {
+			series.addPoint(step.points[i], false, i >= step.shiftFrom);
 		}
+		return true;
+	case 'data':
+		if (series == null) {
+			return false;
+		}
+		series.setData(step.data, false);
+		return true;
 	}
-}
\ No newline at end of file
+	return false;
+}
+
+/*
+ * Updates the options of a section (e.g. title, yAxis)
+ * through the methods available in the running version of highcharts.
+ */
+function updateChartSection(chart, key, options) {
+	if (key == 'title' || key == 'subtitle') {
+		if (chart.setTitle == null) {
+			return false;
+		}
+		chart.setTitle(key == 'title' ? options : null, key == 'subtitle' ? options : null, false);
+		return true;
+	}
+	var axes = chart[key];
+	if ((key == 'xAxis' || key == 'yAxis') && axes != null && axes.length > 0 && axes[0].update != null) {
+		axes[0].update(options, false);
+		return true;
+	}
+	if (chart.update != null) {
+		var changes = {};
+		changes[key] = options;
+		chart.update(changes, false);
+		return true;
+	}
+	return false;
+}
+
+/*
+ * Zoom driven loading.
+ * The callback is notified after each change of the visible x range
+ * (zoom selected by the user, panning, navigator, range selector or
+ * xAxis.setExtremes) with the range and the width of the plot (in pixels),
+ * or with NaN when the zoom is reset. Changes in quick succession
+ * (e.g. dragging the navigator) are notified once they stop and a range
+ * is never notified twice in a row (e.g. when the loaded points are shown).
+ * It is kept when the chart is rendered again.
+ */
+function watchChartZoom(chartID, callback) {
+	zoomWatchers[String(chartID)] = callback;
+	attachZoomWatcher(getChartById(chartID));
+}
+
+function unwatchChartZoom(chartID) {
+	delete zoomWatchers[String(chartID)];
+}
+
+function attachZoomWatcher(chart) {
+	var chartID = (chart != null) ? String(chart.id) : null;
+	if (chartID == null || zoomWatchers[chartID] == null || chart.zoomWatched
+			|| window.Highcharts == null || Highcharts.addEvent == null) {
+		return;
+	}
+	chart.zoomWatched = true;
+	// the chart is rendered without zoom
+	chart.zoomNotified = 'reset';
+	var schedule = function() {
+		if (chart.zoomTimer != null) {
+			window.clearTimeout(chart.zoomTimer);
+		}
+		// the extremes are applied by highcharts after the selection event
+		chart.zoomTimer = window.setTimeout(function() {
+			chart.zoomTimer = null;
+			if (getChartById(chartID) == chart) {
+				notifyChartZoom(chart, zoomWatchers[chartID]);
+			}
+		}, ZOOM_DELAY);
+	};
+	Highcharts.addEvent(chart, 'selection', function(event) {
+		// needed by the versions not telling the zoom of the user (userMin)
+		chart.zoomReset = event.resetSelection == true;
+		schedule();
+	});
+	if (chart.xAxis != null && chart.xAxis.length > 0) {
+		Highcharts.addEvent(chart.xAxis[0], 'afterSetExtremes', function() {
+			schedule();
+		});
+	}
+}
+
+function notifyChartZoom(chart, callback) {
+	if (callback == null || chart.xAxis == null || chart.xAxis.length == 0) {
+		return;
+	}
+	var extremes = chart.xAxis[0].getExtremes();
+	var reset = chart.zoomReset == true
+		|| ('userMin' in extremes && extremes.userMin == null && extremes.userMax == null);
+	chart.zoomReset = false;
+	var notified = reset ? 'reset' : extremes.min + ':' + extremes.max + ':' + chart.plotWidth;
+	if (notified == chart.zoomNotified) {
+		return;
+	}
+	chart.zoomNotified = notified;
+	if (reset) {
+		callback(NaN, NaN, chart.plotWidth);
+	} else {
+		callback(extremes.min, extremes.max, chart.plotWidth);
+	}
+}
@@ -0,0 +1,92 @@
+/****************************************************************************
+ *  This software is part of the HighchartsJS adapters for Ext GWT.
+ ****************************************************************************
+ * This library is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this library.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ ****************************************************************************
+ * Filename: CategoryAxisBenchmark.java
+ ****************************************************************************
+ * @author <a href="mailto:daniele.strollo@gmail.com">Daniele Strollo</a>
+ ***************************************************************************/
+
+package org.gxt.adapters.highcharts.benchmarks;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.gxt.adapters.highcharts.codegen.sections.Section.SectionKeys;
+import org.gxt.adapters.highcharts.codegen.sections.options.AvailableSectionOptions;
+import org.gxt.adapters.highcharts.codegen.types.HighChartJS;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Charts with many categories on the x axis
+ * ({@link AvailableSectionOptions#SEC_XAXIS_CATEGORIES}) and series
+ * whose points are labeled with the same categories.
+ * @author Daniele Strollo
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgs = { "-Xmx4g" })
+public class CategoryAxisBenchmark {
+	@Param({ "100", "10000", "100000" })
+	private int categories;
+
+	@Param({ "1", "10" })
+	private int series;
+
+	private HighChartJS chart = null;
+
+	@Setup
+	public void setup() throws Exception {
+		List<String> labels = Data.labels(this.categories);
+		this.chart = new HighChartJS("benchmark");
+		this.chart.setDivId("benchmark-frame");
+		this.chart.getSection(SectionKeys.SEC_XAXIS).addOption(AvailableSectionOptions.SEC_XAXIS_CATEGORIES, labels);
+		for (int i = 0; i < this.series; i++) {
+			this.chart.addSeries(Data.series("series " + i, this.categories, Data.Shape.LABELED, labels));
+		}
+	}
+
+	/**
+	 * Generation of the code of the x axis only.
+	 */
+	@Benchmark
+	public String generateAxis(final OutputSize size) {
+		this.chart.getSection(SectionKeys.SEC_XAXIS).invalidateJS();
+		return size.record(this.chart.getSection(SectionKeys.SEC_XAXIS).getJS());
+	}
+
+	/**
+	 * Generation of the whole chart.
+	 */
+	@Benchmark
+	public String generate(final OutputSize size) {
+		this.chart.invalidateJS();
+		return size.record(this.chart.getJS());
+	}
+}
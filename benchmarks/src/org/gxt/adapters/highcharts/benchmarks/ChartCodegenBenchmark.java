@@ -0,0 +1,92 @@
+/****************************************************************************
+ *  This software is part of the HighchartsJS adapters for Ext GWT.
+ ****************************************************************************
+ * This library is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this library.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ ****************************************************************************
+ * Filename: ChartCodegenBenchmark.java
+ ****************************************************************************
+ * @author <a href="mailto:daniele.strollo@gmail.com">Daniele Strollo</a>
+ ***************************************************************************/
+
+package org.gxt.adapters.highcharts.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.gxt.adapters.highcharts.codegen.sections.Section.SectionKeys;
+import org.gxt.adapters.highcharts.codegen.sections.options.AvailableSectionOptions;
+import org.gxt.adapters.highcharts.codegen.types.HighChartJS;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Generation of the code of a whole chart ({@link HighChartJS#getJS()})
+ * with 1 to 100 series.
+ * @author Daniele Strollo
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgs = { "-Xmx4g" })
+public class ChartCodegenBenchmark {
+	@Param({ "1", "10", "100" })
+	private int series;
+
+	@Param({ "100", "10000", "100000" })
+	private int points;
+
+	@Param({ "Y", "XY" })
+	private String shape;
+
+	private HighChartJS chart = null;
+
+	@Setup
+	public void setup() throws Exception {
+		this.chart = new HighChartJS("benchmark");
+		this.chart.setDivId("benchmark-frame");
+		this.chart.getSection(SectionKeys.SEC_TITLE).addOption(AvailableSectionOptions.SEC_TITLE_TEXT, "Benchmark");
+		this.chart.getSection(SectionKeys.SEC_CREDITS).addOption(AvailableSectionOptions.SEC_CREDITS_ENABLED, false);
+		for (int i = 0; i < this.series; i++) {
+			this.chart.addSeries(Data.series("series " + i, this.points, Data.Shape.valueOf(this.shape), null));
+		}
+	}
+
+	/**
+	 * Generation of the whole chart (all the caches are dropped).
+	 */
+	@Benchmark
+	public String generate(final OutputSize size) {
+		this.chart.invalidateJS();
+		return size.record(this.chart.getJS());
+	}
+
+	/**
+	 * Generation of an unchanged chart (i.e. the cached code is reused).
+	 */
+	@Benchmark
+	public String regenerate(final OutputSize size) {
+		return size.record(this.chart.getJS());
+	}
+}
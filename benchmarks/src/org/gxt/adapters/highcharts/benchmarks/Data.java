@@ -0,0 +1,81 @@
+/****************************************************************************
+ *  This software is part of the HighchartsJS adapters for Ext GWT.
+ ****************************************************************************
+ * This library is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this library.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ ****************************************************************************
+ * Filename: Data.java
+ ****************************************************************************
+ * @author <a href="mailto:daniele.strollo@gmail.com">Daniele Strollo</a>
+ ***************************************************************************/
+
+package org.gxt.adapters.highcharts.benchmarks;
+
+import java.util.List;
+import java.util.Random;
+import java.util.Vector;
+
+import org.gxt.adapters.highcharts.codegen.types.SeriesData;
+import org.gxt.adapters.highcharts.codegen.types.SeriesType;
+
+/**
+ * Generation of the data used by the benchmarks.
+ * The generators are seeded so that all runs work on the same data.
+ * @author Daniele Strollo
+ */
+final class Data {
+	private static final long SEED = 42;
+
+	/**
+	 * The shapes of the points of a series.
+	 */
+	enum Shape {
+		// only y values
+		Y,
+		// both x and y values
+		XY,
+		// y values with a label
+		LABELED
+	}
+
+	private Data() {
+	}
+
+	static SeriesType series(final String name, final int points, final Shape shape, final List<String> labels) {
+		Random random = new Random(SEED);
+		SeriesData data = new SeriesData(points);
+		for (int i = 0; i < points; i++) {
+			double y = Math.round(random.nextGaussian() * 10000) / 100.0;
+			switch (shape) {
+			case XY:
+				data.add(1262304000000.0 + i * 1000.0, y);
+				break;
+			case LABELED:
+				data.add(null, y, labels.get(i % labels.size()));
+				break;
+			default:
+				data.add(y);
+			}
+		}
+		return new SeriesType(name, data);
+	}
+
+	static List<String> labels(final int count) {
+		List<String> retval = new Vector<String>(count);
+		for (int i = 0; i < count; i++) {
+			retval.add("Category " + i);
+		}
+		return retval;
+	}
+}
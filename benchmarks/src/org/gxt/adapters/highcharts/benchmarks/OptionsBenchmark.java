@@ -0,0 +1,106 @@
+/****************************************************************************
+ *  This software is part of the HighchartsJS adapters for Ext GWT.
+ ****************************************************************************
+ * This library is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this library.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ ****************************************************************************
+ * Filename: OptionsBenchmark.java
+ ****************************************************************************
+ * @author <a href="mailto:daniele.strollo@gmail.com">Daniele Strollo</a>
+ ***************************************************************************/
+
+package org.gxt.adapters.highcharts.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.gxt.adapters.highcharts.codegen.sections.Section;
+import org.gxt.adapters.highcharts.codegen.sections.Section.SectionKeys;
+import org.gxt.adapters.highcharts.codegen.sections.SectionChart;
+import org.gxt.adapters.highcharts.codegen.sections.SectionLegend;
+import org.gxt.adapters.highcharts.codegen.sections.SectionTooltip;
+import org.gxt.adapters.highcharts.codegen.sections.options.AvailableSectionOptions;
+import org.gxt.adapters.highcharts.codegen.types.HighChartJS;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Sections with all their options assigned (i.e. the default values)
+ * plus a number of raw options.
+ * @author Daniele Strollo
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class OptionsBenchmark {
+	@Param({ "0", "10", "100" })
+	private int rawOptions;
+
+	private HighChartJS chart = null;
+	private Section[] sections = null;
+
+	@Setup
+	public void setup() {
+		this.chart = new HighChartJS("benchmark");
+		this.chart.setDivId("benchmark-frame");
+		this.sections = new Section[] {
+				new SectionChart(this.chart, true),
+				new SectionLegend(this.chart, true),
+				new SectionTooltip(this.chart, true),
+		};
+		for (Section section : this.sections) {
+			for (int i = 0; i < this.rawOptions; i++) {
+				section.addRawOption("custom" + i + ": 'value " + i + "'");
+			}
+		}
+	}
+
+	/**
+	 * Generation of the code of option heavy sections.
+	 */
+	@Benchmark
+	public int generate(final OutputSize size) {
+		int retval = 0;
+		for (Section section : this.sections) {
+			section.invalidateJS();
+			retval += size.record(section.getJS()).length();
+		}
+		return retval;
+	}
+
+	/**
+	 * Assignment of all the options of the legend section.
+	 */
+	@Benchmark
+	public Section assign() throws Exception {
+		Section retval = this.chart.getSection(SectionKeys.SEC_LEGEND);
+		for (AvailableSectionOptions option : AvailableSectionOptions.values()) {
+			if (option.getSectionClass() == SectionLegend.class && option.getOption().getValue() != null) {
+				retval.addOption(option, option.getOption().getValue());
+			}
+		}
+		return retval;
+	}
+}
@@ -0,0 +1,56 @@
+/****************************************************************************
+ *  This software is part of the HighchartsJS adapters for Ext GWT.
+ ****************************************************************************
+ * This library is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this library.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ ****************************************************************************
+ * Filename: OutputSize.java
+ ****************************************************************************
+ * @author <a href="mailto:daniele.strollo@gmail.com">Daniele Strollo</a>
+ ***************************************************************************/
+
+package org.gxt.adapters.highcharts.benchmarks;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Secondary result of the benchmarks: the size (in chars) of the
+ * generated code, reported next to the throughput.
+ * @author Daniele Strollo
+ */
+@State(Scope.Thread)
+@AuxCounters(AuxCounters.Type.EVENTS)
+public class OutputSize {
+	/**
+	 * The size of the code generated by the last invocation.
+	 */
+	public long outputChars;
+
+	@Setup(Level.Iteration)
+	public void reset() {
+		this.outputChars = 0;
+	}
+
+	/**
+	 * Records the size of the generated code and returns it unchanged.
+	 */
+	final String record(final String js) {
+		this.outputChars = js.length();
+		return js;
+	}
+}
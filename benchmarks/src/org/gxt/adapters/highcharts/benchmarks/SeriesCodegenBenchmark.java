@@ -0,0 +1,102 @@
+/****************************************************************************
+ *  This software is part of the HighchartsJS adapters for Ext GWT.
+ ****************************************************************************
+ * This library is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this library.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ ****************************************************************************
+ * Filename: SeriesCodegenBenchmark.java
+ ****************************************************************************
+ * @author <a href="mailto:daniele.strollo@gmail.com">Daniele Strollo</a>
+ ***************************************************************************/
+
+package org.gxt.adapters.highcharts.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.gxt.adapters.highcharts.codegen.types.SeriesData;
+import org.gxt.adapters.highcharts.codegen.types.SeriesType;
+import org.gxt.adapters.highcharts.codegen.types.SeriesType.SeriesDataEntry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Cost of building a single series and of generating its code
+ * ({@link SeriesType#getJS()}) from 100 to 10M points.
+ * @author Daniele Strollo
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgs = { "-Xmx4g" })
+public class SeriesCodegenBenchmark {
+	@Param({ "100", "10000", "1000000", "10000000" })
+	private int points;
+
+	@Param({ "Y", "XY", "LABELED" })
+	private String shape;
+
+	private SeriesType series = null;
+	private double[] values = null;
+
+	@Setup
+	public void setup() {
+		this.series = Data.series("series", this.points, Data.Shape.valueOf(this.shape), Data.labels(100));
+		this.values = new double[this.points];
+		for (int i = 0; i < this.points; i++) {
+			this.values[i] = this.series.getData().getY(i);
+		}
+	}
+
+	/**
+	 * Generation of the whole code of the series (the cache is dropped).
+	 */
+	@Benchmark
+	public String generate(final OutputSize size) {
+		this.series.invalidateJS();
+		return size.record(this.series.getJS());
+	}
+
+	/**
+	 * Construction of the series from primitive values.
+	 */
+	@Benchmark
+	public SeriesType buildBulk() {
+		SeriesData data = new SeriesData(this.values.length);
+		data.addAll(this.values);
+		return new SeriesType("series", data);
+	}
+
+	/**
+	 * Construction of the series from boxed points.
+	 */
+	@Benchmark
+	public SeriesType buildEntries() {
+		SeriesType retval = new SeriesType("series");
+		for (int i = 0; i < this.values.length; i++) {
+			retval.addEntry(new SeriesDataEntry(this.values[i]));
+		}
+		return retval;
+	}
+}
@@ -7,5 +7,9 @@
  * ones the chart is ready to be rendered and uses this JS string
  * to replace the DOM of the container so that it can be adapted to
  * <a href="http://www.sencha.com/products/extgwt/">Ext-GWT (GXT) widgets.</a>
+ * <br/>
+ * The getJS methods are built on top of writeJS methods, that append the
+ * code of each element inside a single shared
+ * {@link org.gxt.adapters.highcharts.codegen.utils.JSWriter}.
  */
 package org.gxt.adapters.highcharts.codegen;
@@ -22,11 +22,14 @@
 
 package org.gxt.adapters.highcharts.codegen.sections;
 
-import java.util.List;
-import java.util.Vector;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
 import org.gxt.adapters.highcharts.codegen.sections.options.AvailableSectionOptions;
+import org.gxt.adapters.highcharts.codegen.sections.options.SectionOptionValues;
 import org.gxt.adapters.highcharts.codegen.types.HighChartJS;
-import org.gxt.adapters.highcharts.codegen.utils.StringUtils;
+import org.gxt.adapters.highcharts.codegen.utils.JSObjectBuilder;
+import org.gxt.adapters.highcharts.codegen.utils.JSWriter;
 
 /**
  * A section corresponds to blocks inside the chart.
@@ -113,8 +116,11 @@ public abstract class Section {
 		}
 	}
 
-	private List<AvailableSectionOptions> options = new Vector<AvailableSectionOptions>();
-	private List<String> rawOptions = new Vector<String>();
+	private SectionOptionValues values = new SectionOptionValues(this.getClass());
+	// the code generated at last rendering (null if changed since then)
+	private String cachedJS = null;
+	// the raw options indexed by their attribute name
+	private Map<String, String> rawOptions = new LinkedHashMap<String, String>();
 	private HighChartJS parent = null;
 
 	/**
@@ -144,12 +150,15 @@ public abstract class Section {
 		}
 	}
 
-	protected final List<AvailableSectionOptions> getOptions() {
-		return this.options;
+	/**
+	 * @return the number of options (not raw) assigned to the section.
+	 */
+	protected final int getOptionsCount() {
+		return this.values.size();
 	}
 
-	protected final List<String> getRawOptions() {
-		return this.rawOptions;
+	protected final Collection<String> getRawOptions() {
+		return this.rawOptions.values();
 	}
 
 	protected final HighChartJS getHighChart() {
@@ -162,35 +171,163 @@ public abstract class Section {
 	 * @return the corresponding javascript entry for the option.
 	 */
 	public String getJS() {
-		if (this.options.size() == 0 && this.rawOptions.size() == 0) {
+		if (!this.hasJS()) {
 			return null;
 		}
+		if (this.cachedJS == null) {
+			JSWriter writer = new JSWriter();
+			this.generateJS(writer);
+			this.cachedJS = writer.toString();
+		}
+		return this.cachedJS;
+	}
+
+	/**
+	 * @return false if the section has nothing to generate
+	 * (i.e. it will not be part of the chart).
+	 */
+	public boolean hasJS() {
+		return this.hasOptions();
+	}
 
-		StringBuilder retval = new StringBuilder();
-		retval.append(this.getSectionName() + ": {");
+	/**
+	 * @return true if at least an option (raw or not) has been assigned.
+	 */
+	public final boolean hasOptions() {
+		return this.values.size() > 0 || this.rawOptions.size() > 0;
+	}
 
-		// The options
-		List<String> entries = null;
-		if (options.size() > 0) {
-			entries = new Vector<String>();
-			for (AvailableSectionOptions option : options) {
-				entries.add(option.getOption().getJS());
+	/**
+	 * The options (raw or not) of the section separated by commas,
+	 * without the name of the section (e.g. text: 'My chart').
+	 * Unlike {@link #getJS()} the code is not cached and does not
+	 * contain the parts added by the section itself (e.g. the container
+	 * of the chart), so it can be used to compare two sections.
+	 */
+	public final String getOptionsJS() {
+		JSWriter writer = new JSWriter(64);
+		this.writeOptions(writer);
+		if (this.rawOptions.size() > 0) {
+			if (this.values.size() > 0) { writer.append(','); }
+			this.writeRawOptions(writer);
+		}
+		return writer.toString();
+	}
+
+	/**
+	 * @return true if all the options (raw or not) assigned to the other
+	 * section are assigned to this one too (maybe with other values).
+	 */
+	public final boolean hasOptionsOf(final Section other) {
+		for (int i = 0; i < other.values.size(); i++) {
+			if (!this.values.isSet(other.values.getOption(i))) {
+				return false;
 			}
-			retval.append(StringUtils.join(entries, ", "));
 		}
+		return this.rawOptions.keySet().containsAll(other.rawOptions.keySet());
+	}
+
+	/**
+	 * Replaces the options of this section with the ones of another
+	 * section of the same kind.
+	 */
+	public final void copyOptions(final Section source) {
+		this.values.clear();
+		for (int i = 0; i < source.values.size(); i++) {
+			AvailableSectionOptions option = source.values.getOption(i);
+			this.values.set(option, source.values.get(option));
+		}
+		this.rawOptions.clear();
+		this.rawOptions.putAll(source.rawOptions);
+		this.invalidateJS();
+	}
+
+	/**
+	 * Appends the javascript block of the section.
+	 * The code is generated only if the section changed since the last
+	 * invocation, otherwise the cached one is used.
+	 * Must be invoked only if {@link #hasJS()}.
+	 * @param writer the buffer in which the section is appended.
+	 */
+	public final void writeJS(final JSWriter writer) {
+		writer.append(this.getJS());
+	}
+
+	/**
+	 * Forces the generation of the code at next rendering.
+	 * To be invoked when something the section depends on changes
+	 * (e.g. the container of the chart).
+	 */
+	public final void invalidateJS() {
+		this.cachedJS = null;
+	}
+
+	/**
+	 * Generates the javascript block of the section.
+	 * @param writer the buffer in which the section is appended.
+	 */
+	protected void generateJS(final JSWriter writer) {
+		writer.append(this.getSectionName()).append(": {");
+
+		// The options
+		this.writeOptions(writer);
 
 		// the Raw options
 		if (this.rawOptions.size() > 0) {
-			if (options.size() > 0) { retval.append(","); }
-			entries = new Vector<String>();
-			for (String option : rawOptions) {
-				entries.add(option);
+			if (this.values.size() > 0) { writer.append(','); }
+			this.writeRawOptions(writer);
+		}
+
+		writer.append('}');
+	}
+
+	/**
+	 * Adds the js object of the section to the chart object.
+	 * Must be invoked only if {@link #hasJS()}.
+	 * @param builder the builder of the chart object.
+	 */
+	public void build(final JSObjectBuilder builder) {
+		builder.beginObject(this.getSectionName());
+		this.buildOptions(builder);
+		builder.endObject();
+	}
+
+	/**
+	 * Adds both the options and the raw options to the current object.
+	 */
+	protected final void buildOptions(final JSObjectBuilder builder) {
+		for (int i = 0; i < this.values.size(); i++) {
+			this.values.build(builder, this.values.getOption(i));
+		}
+		for (String option : this.rawOptions.values()) {
+			builder.addRaw(option);
+		}
+	}
+
+	/**
+	 * Appends the options separated by commas.
+	 */
+	protected final void writeOptions(final JSWriter writer) {
+		for (int i = 0; i < this.values.size(); i++) {
+			if (i > 0) {
+				writer.append(", ");
 			}
-			retval.append(StringUtils.join(entries, ", "));
+			this.values.writeJS(writer, this.values.getOption(i));
 		}
+	}
 
-		retval.append("}");
-		return retval.toString();
+	/**
+	 * Appends the raw options separated by commas.
+	 */
+	protected final void writeRawOptions(final JSWriter writer) {
+		boolean first = true;
+		for (String option : this.rawOptions.values()) {
+			if (!first) {
+				writer.append(", ");
+			}
+			writer.append(option);
+			first = false;
+		}
 	}
 
 
@@ -213,21 +350,140 @@ public abstract class Section {
 	 * <b>Notice:</b> these options will be appended at JS generation phase
 	 * and will not be checked. So use them carefully.
 	 * </p>
+	 * <p>
+	 * Raw options are indexed by their attribute name (i.e. the text before
+	 * the first colon), so adding again an option with the same name
+	 * replaces the previous one.
+	 * </p>
 	 * @param optionLine
 	 */
 	public final void addRawOption(final String optionLine) {
 		if (optionLine != null && optionLine.trim().length() > 0) {
-			this.rawOptions.add(optionLine.trim());
+			String option = optionLine.trim();
+			this.rawOptions.put(getRawOptionKey(option), option);
+			this.invalidateJS();
+		}
+	}
+
+	/**
+	 * Removes a raw option previously added.
+	 * @param key the attribute name of the option (e.g. title).
+	 */
+	public final void removeRawOption(final String key) {
+		if (key != null && this.rawOptions.remove(key.trim()) != null) {
+			this.invalidateJS();
+		}
+	}
+
+	/**
+	 * Removes an option previously added.
+	 */
+	public final void removeOption(final AvailableSectionOptions option) {
+		if (option != null && option.getSectionClass() == this.getClass() && this.values.isSet(option)) {
+			this.values.remove(option);
+			this.invalidateJS();
+		}
+	}
+
+	/**
+	 * Removes all the options (both raw and not) of the section.
+	 */
+	public final void clearOptions() {
+		this.values.clear();
+		this.rawOptions.clear();
+		this.invalidateJS();
+	}
+
+	/*
+	 * The attribute name of a raw option (e.g. title for
+	 * "title: {text: 'the title'}") used to replace it when
+	 * assigned again. Quotes around the name are ignored.
+	 */
+	private static String getRawOptionKey(final String option) {
+		int separator = option.indexOf(':');
+		String retval = (separator > 0) ? option.substring(0, separator).trim() : option;
+		if (retval.length() > 1 && (retval.charAt(0) == '\'' || retval.charAt(0) == '"')
+				&& retval.charAt(retval.length() - 1) == retval.charAt(0)) {
+			retval = retval.substring(1, retval.length() - 1);
 		}
+		return retval;
 	}
 
 	public final void addOption(final AvailableSectionOptions option, final Object value) throws Exception {
 		if (option != null && value != null) {
-			if (option.getSectionClass() != this.getClass()) {
-				throw new Exception("The option parameter " + option.name() + " is not assignable to section: " + this.getSectionName());
-			}
-			option.getOption().setValue(value);
-			this.options.add(option);
+			this.checkOption(option);
+			this.values.set(option, value);
+			this.invalidateJS();
+		}
+	}
+
+	/*
+	 * Type specialized versions of addOption (i.e. no boxing of values).
+	 * Each one writes the same code as the boxed value: floats and chars
+	 * are boxed (instead of being widened to double and int).
+	 */
+	public final void addOption(final AvailableSectionOptions option, final boolean value) throws Exception {
+		if (option != null) {
+			this.checkOption(option);
+			this.values.setBoolean(option, value);
+			this.invalidateJS();
+		}
+	}
+
+	public final void addOption(final AvailableSectionOptions option, final int value) throws Exception {
+		if (option != null) {
+			this.checkOption(option);
+			this.values.setInteger(option, value);
+			this.invalidateJS();
+		}
+	}
+
+	public final void addOption(final AvailableSectionOptions option, final long value) throws Exception {
+		if (option != null) {
+			this.checkOption(option);
+			this.values.setInteger(option, value);
+			this.invalidateJS();
+		}
+	}
+
+	public final void addOption(final AvailableSectionOptions option, final float value) throws Exception {
+		this.addOption(option, (Object) Float.valueOf(value));
+	}
+
+	public final void addOption(final AvailableSectionOptions option, final char value) throws Exception {
+		this.addOption(option, (Object) Character.valueOf(value));
+	}
+
+	public final void addOption(final AvailableSectionOptions option, final double value) throws Exception {
+		if (option != null) {
+			this.checkOption(option);
+			this.values.setNumber(option, value);
+			this.invalidateJS();
+		}
+	}
+
+	public final void addOption(final AvailableSectionOptions option, final String value) throws Exception {
+		if (option != null && value != null) {
+			this.checkOption(option);
+			this.values.setString(option, value);
+			this.invalidateJS();
+		}
+	}
+
+	/**
+	 * @return the value assigned to the option in this section
+	 * or null if not assigned.
+	 */
+	public final Object getOptionValue(final AvailableSectionOptions option) {
+		if (option == null || option.getSectionClass() != this.getClass()) {
+			return null;
+		}
+		return this.values.get(option);
+	}
+
+	private void checkOption(final AvailableSectionOptions option) throws Exception {
+		if (option.getSectionClass() != this.getClass()) {
+			throw new Exception("The option parameter " + option.name() + " is not assignable to section: " + this.getSectionName());
 		}
 	}
 }
@@ -22,12 +22,9 @@
 
 package org.gxt.adapters.highcharts.codegen.sections;
 
-import java.util.List;
-import java.util.Vector;
-
-import org.gxt.adapters.highcharts.codegen.sections.options.AvailableSectionOptions;
 import org.gxt.adapters.highcharts.codegen.types.HighChartJS;
-import org.gxt.adapters.highcharts.codegen.utils.StringUtils;
+import org.gxt.adapters.highcharts.codegen.utils.JSObjectBuilder;
+import org.gxt.adapters.highcharts.codegen.utils.JSWriter;
 
 /**
  * @author Daniele Strollo
@@ -48,52 +45,62 @@ public final class SectionChart extends Section {
 	}
 
 	@Override
-	public String getJS() {
-		List<AvailableSectionOptions> options = this.getOptions();
+	public boolean hasJS() {
+		// the chart block is always needed (e.g. for the container).
+		return true;
+	}
 
-		StringBuilder retval = new StringBuilder();
-		retval.append(this.getSectionName() + ": {");
+	@Override
+	protected void generateJS(final JSWriter writer) {
+		writer.append(this.getSectionName()).append(": {");
 
 		// Inserts the events for registering the chart
 		// in order to handle resize events.
-		retval.append(
-				"renderTo: '" + this.getHighChart().getDivId() + "', " +
-				"events: { " +
-					"load: function registerMe() { " +
-					"this.id = '" + this.getHighChart().getJSChartName() + "'; " +
-					"$wnd.registerChart(this, true); " +
-				"} " +
-		"}");
+		writer.append("renderTo: '").append(this.getHighChart().getDivId()).append("', ")
+		.append("events: { ")
+		.append("load: function registerMe() { ")
+		.append("this.id = '").append(this.getHighChart().getJSChartName()).append("'; ")
+		.append("$wnd.registerChart(this, true); ")
+		.append("} ")
+		.append("}");
 
-		if (options.size() == 0) {
+		if (this.getOptionsCount() == 0) {
 			// end of section chart block
-			retval.append("}");
-			return retval.toString();
+			writer.append('}');
+			return;
 		}
 
-		if (options != null && options.size() > 0) {
-			retval.append(",");
-			// The options
-			List<String> entries = new Vector<String>();
-			for (AvailableSectionOptions option : options) {
-				entries.add(option.getOption().getJS());
-			}
-			retval.append(StringUtils.join(entries, ", "));
-		}
+		// The options
+		writer.append(',');
+		this.writeOptions(writer);
 
 		// the Raw options
-		List<String> rawOptions = this.getRawOptions();
-		if (rawOptions.size() > 0) {
-			retval.append(",");
-			List<String> entries = new Vector<String>();
-			for (String option : rawOptions) {
-				entries.add(option);
-			}
-			retval.append(StringUtils.join(entries, ", "));
+		if (this.getRawOptions().size() > 0) {
+			writer.append(',');
+			this.writeRawOptions(writer);
 		}
 
-		retval.append("}");
-		return retval.toString();
+		writer.append('}');
 	}
 
+	/**
+	 * The events for registering the chart are not part of the built
+	 * object, they must be attached by the {@link org.gxt.adapters.highcharts.codegen.types.ChartRenderer}.
+	 */
+	@Override
+	public void build(final JSObjectBuilder builder) {
+		this.build(builder, this.getHighChart());
+	}
+
+	/**
+	 * Adds the options of this section to the object of another chart
+	 * (i.e. a chart stamped from a {@link org.gxt.adapters.highcharts.codegen.types.ChartTemplate}).
+	 * @param chart the chart whose container is used.
+	 */
+	public void build(final JSObjectBuilder builder, final HighChartJS chart) {
+		builder.beginObject(this.getSectionName());
+		builder.addString("renderTo", chart.getDivId());
+		this.buildOptions(builder);
+		builder.endObject();
+	}
 }
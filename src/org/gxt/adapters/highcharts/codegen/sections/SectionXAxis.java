@@ -22,6 +22,9 @@
 
 package org.gxt.adapters.highcharts.codegen.sections;
 
+import java.util.List;
+
+import org.gxt.adapters.highcharts.codegen.sections.options.AvailableSectionOptions;
 import org.gxt.adapters.highcharts.codegen.types.HighChartJS;
 
 /**
@@ -52,4 +55,20 @@ public class SectionXAxis extends Section {
 		}
 	}
 
+	/**
+	 * The names of the categories of the axis.
+	 * @param categories null to remove them.
+	 */
+	public final void setCategories(final List<String> categories) {
+		if (categories == null) {
+			this.removeOption(AvailableSectionOptions.SEC_XAXIS_CATEGORIES);
+			return;
+		}
+		try {
+			this.addOption(AvailableSectionOptions.SEC_XAXIS_CATEGORIES, categories);
+		} catch (Exception e) {
+			// not possible: the option belongs to this section
+		}
+	}
+
 }
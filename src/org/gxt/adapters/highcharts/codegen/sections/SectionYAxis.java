@@ -47,7 +47,7 @@ public class SectionYAxis extends Section {
 
 	public final void setTitle(final String title) {
 		if (title != null && title.trim().length() > 0) {
-			this.addRawOption("title: { margin: 40, rotation: 270, text: '" + title.trim() + "', align: 'middle', enabled: 'middle' },");
+			this.addRawOption("title: { margin: 40, rotation: 270, text: '" + title.trim() + "', align: 'middle', enabled: 'middle' }");
 		}
 	}
 
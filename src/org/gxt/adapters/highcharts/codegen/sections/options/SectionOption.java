@@ -23,8 +23,8 @@
 package org.gxt.adapters.highcharts.codegen.sections.options;
 
 import java.util.List;
-import java.util.Vector;
-import org.gxt.adapters.highcharts.codegen.utils.StringUtils;
+import org.gxt.adapters.highcharts.codegen.utils.JSObjectBuilder;
+import org.gxt.adapters.highcharts.codegen.utils.JSWriter;
 
 /**
  * The options that can be expressed in the charts are
@@ -32,6 +32,11 @@ import org.gxt.adapters.highcharts.codegen.utils.StringUtils;
  * Inside {@link AvailableSectionOptions} you will find
  * the list of all available options that can be passed to
  * the different sections of the chart.
+ * <p>
+ * The value kept here is the default one of the option, shared by all
+ * charts. The values assigned to the options of a chart are instead
+ * stored inside its sections (see {@link SectionOptionValues}).
+ * </p>
  * @author Daniele Strollo
  */
 public final class SectionOption {
@@ -54,14 +59,27 @@ public final class SectionOption {
 		}
 	}
 
+	public String getName() {
+		return this.name;
+	}
+
 	public void setOptClass(final Class<?> type) {
 		this.type = type;
 	}
 
+	/**
+	 * @return the default value of the option.
+	 */
 	public Object getValue() {
 		return this.value;
 	}
 
+	/**
+	 * @deprecated the option is shared by all the charts so this changes
+	 * its default value. To assign the option to a chart use
+	 * {@link org.gxt.adapters.highcharts.codegen.sections.Section#addOption(AvailableSectionOptions, Object)}.
+	 */
+	@Deprecated
 	public void setValue(final Object value) throws Exception {
 		if (value != null) {
 			this.value = value;
@@ -75,38 +93,94 @@ public final class SectionOption {
 
 	/**
 	 * The representation of the value in js.
-	 * @return
+	 * @param writer the buffer in which the value is appended.
+	 * @param value the value to represent.
 	 */
-	private String getValueRepr() {
-		if (this.value == null) {
-			return "";
+	static void writeValue(final JSWriter writer, final Object value) {
+		if (value == null) {
+			return;
+		}
+		if (value instanceof Number || value instanceof Boolean) {
+			writer.append(value);
+			return;
+		}
+		if (value instanceof List) {
+			writer.append('[');
+			boolean first = true;
+			for (Object elem : (List<?>) value) {
+				if (!first) {
+					writer.append(", ");
+				}
+				writer.appendQuoted(elem);
+				first = false;
+			}
+			writer.append(']');
+			return;
 		}
-		if (this.value instanceof Number || this.value instanceof Boolean) {
-			return this.value.toString();
+		writer.appendQuoted(value);
+	}
+
+	/**
+	 * Adds the value to the object currently built.
+	 * @param builder the builder of the js object of the section.
+	 * @param name the name of the option.
+	 * @param value the value to represent.
+	 */
+	static void buildValue(final JSObjectBuilder builder, final String name, final Object value) {
+		if (value == null) {
+			return;
 		}
-		if (this.value instanceof List) {
-			StringBuffer retval = new StringBuffer();
-			retval.append("[");
-			List<String> elems = new Vector<String>();
-			for (Object elem : (List<?>) this.value) {
-				elems.add("'" + elem.toString() + "'");
+		if (value instanceof Float) {
+			// the value as written in the code (e.g. 0.1 and not 0.10000000149011612)
+			builder.addNumber(name, Double.parseDouble(value.toString()));
+		} else if (value instanceof Number) {
+			builder.addNumber(name, ((Number) value).doubleValue());
+		} else if (value instanceof Boolean) {
+			builder.addBoolean(name, ((Boolean) value).booleanValue());
+		} else if (value instanceof List) {
+			builder.beginArray(name);
+			for (Object elem : (List<?>) value) {
+				builder.addString(null, String.valueOf(elem));
 			}
-			retval.append(StringUtils.join(elems, ", "));
-			retval.append("]");
-			return retval.toString();
+			builder.endArray();
+		} else {
+			builder.addString(name, value.toString());
 		}
-		return "'" + this.value + "'";
 	}
 
 	/**
 	 * Each option has a corresponding javascript code that will
 	 * be replaced in the chart template at rendering phase.
-	 * @return the corresponding javascript entry for the option.
+	 * @return the corresponding javascript entry for the option
+	 * with its default value.
 	 */
 	public String getJS() {
 		if (this.value == null) {
 			return "";
 		}
-		return this.name + ": " + getValueRepr();
+		JSWriter writer = new JSWriter();
+		this.writeJS(writer);
+		return writer.toString();
+	}
+
+	/**
+	 * Appends the javascript entry of the option with its default value
+	 * (e.g. text: 'Chart title').
+	 * @param writer the buffer in which the option is appended.
+	 */
+	public void writeJS(final JSWriter writer) {
+		if (this.value == null) {
+			return;
+		}
+		writer.append(this.name).append(": ");
+		writeValue(writer, this.value);
+	}
+
+	/**
+	 * Adds the option with its default value to the object currently built.
+	 * @param builder the builder of the js object of the section.
+	 */
+	public void build(final JSObjectBuilder builder) {
+		buildValue(builder, this.name, this.value);
 	}
 }
@@ -0,0 +1,310 @@
+/****************************************************************************
+ *  This software is part of the HighchartsJS adapters for Ext GWT.
+ ****************************************************************************
+ * This library is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this library.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ ****************************************************************************
+ * Filename: SectionOptionValues.java
+ ****************************************************************************
+ * @author <a href="mailto:daniele.strollo@gmail.com">Daniele Strollo</a>
+ ***************************************************************************/
+
+package org.gxt.adapters.highcharts.codegen.sections.options;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Vector;
+
+import org.gxt.adapters.highcharts.codegen.sections.Section;
+import org.gxt.adapters.highcharts.codegen.utils.JSObjectBuilder;
+import org.gxt.adapters.highcharts.codegen.utils.JSWriter;
+
+/**
+ * The values assigned to the options of a single section.
+ * Each section owns its values, so charts built at the same time
+ * (e.g. by different threads on the server side) do not interfere.
+ * <p>
+ * Values are stored in slots indexed by the position of the option
+ * among the ones of its section (as an EnumMap does for the whole enum):
+ * numbers and booleans are kept in primitive arrays (integers apart,
+ * so that longs are kept exactly) and only strings, lists and other
+ * objects are kept as references.
+ * </p>
+ * <p>
+ * Each option is stored once: assigning it again replaces its value
+ * while it keeps its position (the order in which options have been
+ * assigned is the order of generation).
+ * </p>
+ * @author Daniele Strollo
+ */
+public final class SectionOptionValues {
+	private static final byte UNSET = 0;
+	private static final byte BOOLEAN = 1;
+	private static final byte INTEGER = 2;
+	private static final byte NUMBER = 3;
+	private static final byte STRING = 4;
+	private static final byte LIST = 5;
+	private static final byte OBJECT = 6;
+
+	// the slot of each option inside its own section
+	private static final int[] SLOTS = new int[AvailableSectionOptions.values().length];
+	// the options of each section ordered by slot
+	private static final Map<Class<? extends Section>, AvailableSectionOptions[]> SECTION_OPTIONS =
+		new HashMap<Class<? extends Section>, AvailableSectionOptions[]>();
+	private static final AvailableSectionOptions[] NO_OPTIONS = new AvailableSectionOptions[0];
+
+	static {
+		Map<Class<? extends Section>, List<AvailableSectionOptions>> bySection =
+			new HashMap<Class<? extends Section>, List<AvailableSectionOptions>>();
+		for (AvailableSectionOptions option : AvailableSectionOptions.values()) {
+			List<AvailableSectionOptions> options = bySection.get(option.getSectionClass());
+			if (options == null) {
+				options = new Vector<AvailableSectionOptions>();
+				bySection.put(option.getSectionClass(), options);
+			}
+			SLOTS[option.ordinal()] = options.size();
+			options.add(option);
+		}
+		for (Map.Entry<Class<? extends Section>, List<AvailableSectionOptions>> entry : bySection.entrySet()) {
+			SECTION_OPTIONS.put(entry.getKey(), entry.getValue().toArray(NO_OPTIONS));
+		}
+	}
+
+	private AvailableSectionOptions[] available = null;
+	private byte[] kinds = null;
+	private double[] numbers = null;
+	private long[] integers = null;
+	private Object[] objects = null;
+	// the slots of the assigned options in order of assignment
+	private int[] order = null;
+	private int count = 0;
+
+	/**
+	 * @param section the class of the section that will own the values.
+	 */
+	public SectionOptionValues(final Class<? extends Section> section) {
+		AvailableSectionOptions[] options = SECTION_OPTIONS.get(section);
+		this.available = (options != null) ? options : NO_OPTIONS;
+		this.kinds = new byte[this.available.length];
+		this.order = new int[this.available.length];
+	}
+
+	/**
+	 * @return the number of assigned options.
+	 */
+	public int size() {
+		return this.count;
+	}
+
+	/**
+	 * @param position from 0 to {@link #size()} - 1.
+	 * @return the assigned option in the given position (in order of assignment).
+	 */
+	public AvailableSectionOptions getOption(final int position) {
+		return this.available[this.order[position]];
+	}
+
+	/**
+	 * Removes the value of the option.
+	 */
+	public void remove(final AvailableSectionOptions option) {
+		int slot = slot(option);
+		if (this.kinds[slot] == UNSET) {
+			return;
+		}
+		this.kinds[slot] = UNSET;
+		if (this.objects != null) {
+			this.objects[slot] = null;
+		}
+		for (int i = 0; i < this.count; i++) {
+			if (this.order[i] == slot) {
+				System.arraycopy(this.order, i + 1, this.order, i, this.count - i - 1);
+				break;
+			}
+		}
+		this.count--;
+	}
+
+	/**
+	 * Removes all the values.
+	 */
+	public void clear() {
+		for (int i = 0; i < this.kinds.length; i++) {
+			this.kinds[i] = UNSET;
+		}
+		this.objects = null;
+		this.count = 0;
+	}
+
+	public void setBoolean(final AvailableSectionOptions option, final boolean value) {
+		this.setNumeric(option, BOOLEAN, value ? 1 : 0);
+	}
+
+	public void setInteger(final AvailableSectionOptions option, final long value) {
+		int slot = slot(option);
+		if (this.integers == null) {
+			this.integers = new long[this.kinds.length];
+		}
+		this.integers[slot] = value;
+		if (this.objects != null) {
+			this.objects[slot] = null;
+		}
+		this.assign(slot, INTEGER);
+	}
+
+	public void setNumber(final AvailableSectionOptions option, final double value) {
+		this.setNumeric(option, NUMBER, value);
+	}
+
+	public void setString(final AvailableSectionOptions option, final String value) {
+		if (value == null) {
+			throw new IllegalArgumentException("The value of " + option.name() + " cannot be null");
+		}
+		this.setObject(option, STRING, value);
+	}
+
+	/**
+	 * Stores the value in the slot specialized for its type.
+	 */
+	public void set(final AvailableSectionOptions option, final Object value) {
+		if (value == null) {
+			throw new IllegalArgumentException("The value of " + option.name() + " cannot be null");
+		}
+		if (value instanceof Boolean) {
+			this.setBoolean(option, ((Boolean) value).booleanValue());
+		} else if (value instanceof Integer || value instanceof Long
+				|| value instanceof Short || value instanceof Byte) {
+			this.setInteger(option, ((Number) value).longValue());
+		} else if (value instanceof Double) {
+			this.setNumber(option, ((Double) value).doubleValue());
+		} else if (value instanceof String) {
+			this.setString(option, (String) value);
+		} else if (value instanceof List) {
+			this.setObject(option, LIST, value);
+		} else {
+			this.setObject(option, OBJECT, value);
+		}
+	}
+
+	public boolean isSet(final AvailableSectionOptions option) {
+		return this.kinds[slot(option)] != UNSET;
+	}
+
+	/**
+	 * @return the boxed value of the option or null if not assigned.
+	 */
+	public Object get(final AvailableSectionOptions option) {
+		int slot = slot(option);
+		switch (this.kinds[slot]) {
+		case BOOLEAN:
+			return Boolean.valueOf(this.numbers[slot] != 0);
+		case INTEGER:
+			return Long.valueOf(this.integers[slot]);
+		case NUMBER:
+			return Double.valueOf(this.numbers[slot]);
+		case UNSET:
+			return null;
+		default:
+			return this.objects[slot];
+		}
+	}
+
+	/**
+	 * Appends the javascript entry of the option (e.g. text: 'My chart').
+	 * Nothing is written if the option has no value.
+	 */
+	public void writeJS(final JSWriter writer, final AvailableSectionOptions option) {
+		int slot = slot(option);
+		byte kind = this.kinds[slot];
+		if (kind == UNSET) {
+			return;
+		}
+		writer.append(option.getOption().getName()).append(": ");
+		switch (kind) {
+		case BOOLEAN:
+			writer.append(this.numbers[slot] != 0 ? "true" : "false");
+			break;
+		case INTEGER:
+			writer.append(this.integers[slot]);
+			break;
+		case NUMBER:
+			writer.appendNumber(this.numbers[slot], true);
+			break;
+		case STRING:
+			writer.appendQuoted(this.objects[slot]);
+			break;
+		default:
+			SectionOption.writeValue(writer, this.objects[slot]);
+		}
+	}
+
+	/**
+	 * Adds the option to the object currently built.
+	 */
+	public void build(final JSObjectBuilder builder, final AvailableSectionOptions option) {
+		int slot = slot(option);
+		String name = option.getOption().getName();
+		switch (this.kinds[slot]) {
+		case UNSET:
+			break;
+		case BOOLEAN:
+			builder.addBoolean(name, this.numbers[slot] != 0);
+			break;
+		case INTEGER:
+			builder.addNumber(name, this.integers[slot]);
+			break;
+		case NUMBER:
+			builder.addNumber(name, this.numbers[slot]);
+			break;
+		case STRING:
+			builder.addString(name, (String) this.objects[slot]);
+			break;
+		default:
+			SectionOption.buildValue(builder, name, this.objects[slot]);
+		}
+	}
+
+	private static int slot(final AvailableSectionOptions option) {
+		return SLOTS[option.ordinal()];
+	}
+
+	private void setNumeric(final AvailableSectionOptions option, final byte kind, final double value) {
+		int slot = slot(option);
+		if (this.numbers == null) {
+			this.numbers = new double[this.kinds.length];
+		}
+		this.numbers[slot] = value;
+		if (this.objects != null) {
+			this.objects[slot] = null;
+		}
+		this.assign(slot, kind);
+	}
+
+	private void setObject(final AvailableSectionOptions option, final byte kind, final Object value) {
+		int slot = slot(option);
+		if (this.objects == null) {
+			this.objects = new Object[this.kinds.length];
+		}
+		this.objects[slot] = value;
+		this.assign(slot, kind);
+	}
+
+	private void assign(final int slot, final byte kind) {
+		if (this.kinds[slot] == UNSET) {
+			this.order[this.count++] = slot;
+		}
+		this.kinds[slot] = kind;
+	}
+}
@@ -0,0 +1,72 @@
+/****************************************************************************
+ *  This software is part of the HighchartsJS adapters for Ext GWT.
+ ****************************************************************************
+ * This library is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this library.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ ****************************************************************************
+ * Filename: BinarySeriesFormat.java
+ ****************************************************************************
+ * @author <a href="mailto:daniele.strollo@gmail.com">Daniele Strollo</a>
+ ***************************************************************************/
+
+package org.gxt.adapters.highcharts.codegen.types;
+
+/**
+ * The binary representation of the points of a series used to ship them
+ * from the server (see org.gxt.adapters.highcharts.server.SeriesEncoder)
+ * to the client (see org.gxt.adapters.highcharts.widgets.BinarySeriesLoader).
+ * All the numbers are little-endian and the columns start at
+ * offsets multiple of 8, so that they can be read as typed arrays.
+ * <pre>
+ * offset  length  content
+ * 0       4       'H' 'C' 'S' {@link #VERSION}
+ * 4       1       flags ({@link #FLAG_X}, {@link #FLAG_X_DELTA}, ...)
+ * 5       3       reserved (0)
+ * 8       4       number of points (uint32)
+ * 12      4       length in bytes of the x column (uint32, 0 if no x)
+ * 16      ...     y column: float64 (or float32 if {@link #FLAG_FLOAT32}),
+ *                 missing points are NaN, padded to 8 bytes
+ * ...     ...     x column: float64 or, if {@link #FLAG_X_DELTA}, the
+ *                 zigzag varints of the differences between consecutive
+ *                 x (the first from 0), padded to 8 bytes
+ * ...     ...     null bitmap (if {@link #FLAG_NULLS}): bit (i % 8) of
+ *                 byte (i / 8) set if the point i is missing
+ * </pre>
+ * Labels are not part of the format.
+ * @author Daniele Strollo
+ */
+public final class BinarySeriesFormat {
+	public static final int VERSION = 1;
+	public static final int HEADER_LENGTH = 16;
+	/** The points have x values. */
+	public static final int FLAG_X = 1;
+	/** The x values are integral and stored as varint deltas. */
+	public static final int FLAG_X_DELTA = 2;
+	/** The y values are stored as float32. */
+	public static final int FLAG_FLOAT32 = 4;
+	/** The null bitmap is present. */
+	public static final int FLAG_NULLS = 8;
+	/** The greatest integral x that can be stored as delta (2^53). */
+	public static final double MAX_DELTA_X = 9007199254740992.0;
+
+	private BinarySeriesFormat() {
+	}
+
+	/**
+	 * The length rounded up to a multiple of 8 bytes.
+	 */
+	public static int pad(final int length) {
+		return (length + 7) & ~7;
+	}
+}
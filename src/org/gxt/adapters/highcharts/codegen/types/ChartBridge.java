@@ -0,0 +1,72 @@
+/****************************************************************************
+ *  This software is part of the HighchartsJS adapters for Ext GWT.
+ ****************************************************************************
+ * This library is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this library.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ ****************************************************************************
+ * Filename: ChartBridge.java
+ ****************************************************************************
+ * @author <a href="mailto:daniele.strollo@gmail.com">Daniele Strollo</a>
+ ***************************************************************************/
+
+package org.gxt.adapters.highcharts.codegen.types;
+
+/**
+ * The operations applied by {@link HighChartJS} on the highchart
+ * instances living inside the page (i.e. the functions of gxt-adapter.js).
+ * Keeping them behind this interface allows to use the code generation
+ * outside the browser (e.g. for generating the charts on the server,
+ * where no bridge is installed).
+ * On the client the bridge is installed by the
+ * {@link org.gxt.adapters.highcharts.widgets.HighChart} widget
+ * (see {@link HighChartJS#setBridge(ChartBridge)}).
+ * @author Daniele Strollo
+ */
+public interface ChartBridge {
+	/**
+	 * Writes the code of a chart inside its container and evaluates its scripts.
+	 */
+	void injectJS(String divId, String jsCode);
+
+	void destroyChart(String chartId);
+
+	void resizeChart(String chartId, int widthOffset, int heightOffset);
+
+	void setUseParent(String chartId, boolean useParent);
+
+	/**
+	 * The operations returning a boolean return false if the chart
+	 * was not able to apply them (e.g. not registered yet).
+	 * @param shiftFrom the position of the first point removing
+	 * the oldest one of the series.
+	 */
+	boolean addPoints(String chartId, int seriesIndex, String pointsJS, int shiftFrom);
+
+	boolean setData(String chartId, int seriesIndex, String dataJS);
+
+	boolean updatePoint(String chartId, int seriesIndex, int pointIndex, String pointJS);
+
+	boolean removeSeries(String chartId, int seriesIndex);
+
+	/**
+	 * Applies a batch of changes redrawing the chart once.
+	 * @param stepsJS the changes (see {@link UpdatePlan#getJS()}).
+	 */
+	boolean applyUpdates(String chartId, String stepsJS);
+
+	/**
+	 * The number of charts registered inside the page.
+	 */
+	int getRegisteredChartsCount();
+}
@@ -0,0 +1,182 @@
+/****************************************************************************
+ *  This software is part of the HighchartsJS adapters for Ext GWT.
+ ****************************************************************************
+ * This library is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this library.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ ****************************************************************************
+ * Filename: ChartDiff.java
+ ****************************************************************************
+ * @author <a href="mailto:daniele.strollo@gmail.com">Daniele Strollo</a>
+ ***************************************************************************/
+
+package org.gxt.adapters.highcharts.codegen.types;
+
+import java.util.List;
+import org.gxt.adapters.highcharts.codegen.sections.Section;
+import org.gxt.adapters.highcharts.codegen.sections.Section.SectionKeys;
+
+/**
+ * Compares two states of a chart (e.g. the rendered one and the one
+ * rebuilt by a polling loop) and computes the changes turning the first
+ * into the second (see {@link UpdatePlan}):
+ * <ul>
+ * <li>the sections are compared option by option, changed sections are
+ * updated in place if no option has been removed;
+ * <li>the series are compared by position: series added or removed at
+ * the end, points appended (also shifting the oldest ones) and data
+ * replaced are applied to the single series (the series whose points in
+ * the browser are not at the positions of the model ones always receive
+ * all their points).
+ * </ul>
+ * Everything else (e.g. a change of the chart section or of the name
+ * of a series) requires the full rendering of the chart.
+ * Usually not used directly, see {@link HighChartJS#update(HighChartJS)}.
+ * @author Daniele Strollo
+ */
+public final class ChartDiff {
+	// the candidate shifts of the points checked before replacing the data
+	private static final int MAX_SHIFT_CHECKS = 8;
+
+	private ChartDiff() {
+	}
+
+	/**
+	 * @param from the current state of the chart.
+	 * @param to the new state.
+	 * @return the changes to apply.
+	 */
+	public static UpdatePlan diff(final HighChartJS from, final HighChartJS to) {
+		UpdatePlan plan = new UpdatePlan();
+		diffSections(plan, from, to);
+		if (!plan.isFullRender()) {
+			diffSeries(plan, from, to);
+		}
+		return plan;
+	}
+
+	private static void diffSections(final UpdatePlan plan, final HighChartJS from, final HighChartJS to) {
+		for (SectionKeys key : SectionKeys.values()) {
+			Section before = from.getEffectiveSection(key);
+			Section after = to.getEffectiveSection(key);
+			String optionsJS = after.getOptionsJS();
+			if (optionsJS.equals(before.getOptionsJS())) {
+				continue;
+			}
+			// the options removed cannot be reset to their defaults
+			if (key == SectionKeys.SEC_CHART || !after.hasOptionsOf(before)) {
+				plan.requireFullRender();
+				return;
+			}
+			plan.updateSection(key, optionsJS);
+		}
+	}
+
+	private static void diffSeries(final UpdatePlan plan, final HighChartJS from, final HighChartJS to) {
+		List<SeriesType> before = from.getSeriesList();
+		List<SeriesType> after = to.getSeriesList();
+		// the points placed on categories are not the ones of the model
+		boolean incremental = !from.hasLabelCategories() && !to.hasLabelCategories();
+		int common = Math.min(before.size(), after.size());
+		for (int i = 0; i < common; i++) {
+			SeriesType oldSeries = before.get(i);
+			SeriesType newSeries = after.get(i);
+			if (!sameSettings(oldSeries, newSeries)
+					|| !diffPoints(plan, i, oldSeries, newSeries, incremental)) {
+				plan.requireFullRender();
+				return;
+			}
+		}
+		// from the last one, so that the positions of the others do not change
+		for (int i = before.size() - 1; i >= common; i--) {
+			plan.removeSeries(i);
+		}
+		for (int i = common; i < after.size(); i++) {
+			plan.addSeries(after.get(i).getJS());
+		}
+	}
+
+	/*
+	 * The options of the series written before its points.
+	 */
+	private static boolean sameSettings(final SeriesType a, final SeriesType b) {
+		return equal(a.getName(), b.getName()) && a.getType() == b.getType()
+		&& a.getDownsampling() == b.getDownsampling() && a.getRequestedThreshold() == b.getRequestedThreshold()
+		&& a.isCompactData() == b.isCompactData() && a.isIntervalDetection() == b.isIntervalDetection()
+		&& a.getIntervalTolerance() == b.getIntervalTolerance() && a.isFillGaps() == b.isFillGaps();
+	}
+
+	/*
+	 * Adds the changes of the points of a series.
+	 * Returns false if they cannot be applied in place.
+	 */
+	private static boolean diffPoints(final UpdatePlan plan, final int index,
+			final SeriesType oldSeries, final SeriesType newSeries, final boolean incremental) {
+		SeriesData before = oldSeries.getData();
+		SeriesData after = newSeries.getData();
+		if (!incremental || newSeries.getDownsampling() != null) {
+			// the rendered points are not the ones of the model
+			return before.size() == after.size() && matches(before, 0, after, before.size());
+		}
+		if (oldSeries.isDetached()) {
+			// the points in the browser are not at the positions of the model ones
+			plan.setData(index, SeriesType.getDataJS(after, 0, after.size()));
+			return true;
+		}
+		int shift = findShift(before, after);
+		int kept = before.size() - shift;
+		int appended = after.size() - kept;
+		if (shift < 0 || shift > appended || appended > kept) {
+			// cheaper to send all the points
+			if (after.size() != before.size() || !matches(before, 0, after, after.size())) {
+				plan.setData(index, SeriesType.getDataJS(after, 0, after.size()));
+			}
+		} else if (appended > 0) {
+			plan.appendPoints(index, SeriesType.getDataJS(after, kept, after.size()), appended - shift);
+		}
+		return true;
+	}
+
+	/*
+	 * The number of points removed from the start of the old series
+	 * if the new one continues it (i.e. starts with its remaining
+	 * points), -1 if not found.
+	 */
+	private static int findShift(final SeriesData before, final SeriesData after) {
+		int checks = 0;
+		for (int shift = 0; shift < before.size() && checks < MAX_SHIFT_CHECKS; shift++) {
+			int kept = before.size() - shift;
+			if (kept > after.size() || !before.equalPoint(shift, after, 0)) {
+				continue;
+			}
+			checks++;
+			if (matches(before, shift, after, kept)) {
+				return shift;
+			}
+		}
+		return -1;
+	}
+
+	private static boolean matches(final SeriesData before, final int from, final SeriesData after, final int length) {
+		for (int i = length - 1; i >= 0; i--) {
+			if (!before.equalPoint(from + i, after, i)) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private static boolean equal(final Object a, final Object b) {
+		return (a == null) ? b == null : a.equals(b);
+	}
+}
@@ -0,0 +1,39 @@
+/****************************************************************************
+ *  This software is part of the HighchartsJS adapters for Ext GWT.
+ ****************************************************************************
+ * This library is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this library.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ ****************************************************************************
+ * Filename: ChartRenderer.java
+ ****************************************************************************
+ * @author <a href="mailto:daniele.strollo@gmail.com">Daniele Strollo</a>
+ ***************************************************************************/
+
+package org.gxt.adapters.highcharts.codegen.types;
+
+/**
+ * Allows to replace the way a chart is rendered inside its container.
+ * By default {@link HighChartJS#doRender()} generates the script of the
+ * chart and evaluates it, if a renderer is assigned
+ * (see {@link HighChartJS#setRenderer(ChartRenderer)}) the rendering
+ * is demanded to it.
+ * @author Daniele Strollo
+ */
+public interface ChartRenderer {
+	/**
+	 * Creates the highchart instance inside the container of the chart.
+	 * @param chart the chart to render.
+	 */
+	void render(HighChartJS chart);
+}
@@ -0,0 +1,237 @@
+/****************************************************************************
+ *  This software is part of the HighchartsJS adapters for Ext GWT.
+ ****************************************************************************
+ * This library is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this library.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ ****************************************************************************
+ * Filename: ChartTemplate.java
+ ****************************************************************************
+ * @author <a href="mailto:daniele.strollo@gmail.com">Daniele Strollo</a>
+ ***************************************************************************/
+
+package org.gxt.adapters.highcharts.codegen.types;
+
+import java.util.ArrayList;
+import java.util.List;
+import org.gxt.adapters.highcharts.codegen.sections.Section;
+import org.gxt.adapters.highcharts.codegen.sections.Section.SectionKeys;
+import org.gxt.adapters.highcharts.codegen.sections.SectionChart;
+import org.gxt.adapters.highcharts.codegen.utils.JSObjectBuilder;
+import org.gxt.adapters.highcharts.codegen.utils.JSWriter;
+import org.gxt.adapters.highcharts.codegen.utils.StringUtils;
+
+/**
+ * The shape shared by several charts (e.g. hundreds of charts
+ * differing only for their title and data).
+ * The sections of the template are configured once and their code is
+ * generated once for all the charts using it, the chart section
+ * being compiled with slots for the container and the name of the chart.
+ * <p>
+ * <b>Example:</b>
+ * </p>
+ * <pre>
+ * ChartTemplate template = new ChartTemplate();
+ * template.getSection(SectionKeys.SEC_YAXIS).addRawOption("min: 0");
+ * ...
+ * HighChartJS chart = template.createChart("cpu");
+ * chart.getSection(SectionKeys.SEC_TITLE).addOption(AvailableSectionOptions.SEC_TITLE_TEXT, "CPU");
+ * chart.addSeries(series);
+ * </pre>
+ * A section having options in the stamped chart replaces the one of
+ * the template (e.g. the title above, or the x axis when the labels
+ * are mapped on categories, see {@link HighChartJS#setLabelCategories(LabelDictionary)}).
+ * Changes to the template are applied to the charts at their next rendering.
+ * The charts of a template can be rendered by different threads (e.g. when
+ * their code is generated on the server), but the template must not be
+ * changed while they are.
+ * @author Daniele Strollo
+ */
+public final class ChartTemplate {
+	private static final SectionKeys[] KEYS = SectionKeys.values();
+	// the markers of the slots inside the generated code
+	// (private use characters, not found in the options)
+	private static final String ID_SLOT = "\uE000id";
+	private static final String DIV_SLOT = "\uE000div";
+	private static final int SLOT_NAME = 0;
+	private static final int SLOT_DIV = 1;
+
+	private HighChartJS shape = null;
+	// the code at last compile, replaced (never changed) when the
+	// sections are modified
+	private Compiled compiled = new Compiled(new String[KEYS.length], null, null);
+
+	/*
+	 * The code of the template.
+	 */
+	private static final class Compiled {
+		// the code of the sections (null for no code)
+		private final String[] sectionsJS;
+		// the code of the chart section split around its slots
+		private final String[] chartParts;
+		private final int[] chartSlots;
+
+		Compiled(final String[] sectionsJS, final String[] chartParts, final int[] chartSlots) {
+			this.sectionsJS = sectionsJS;
+			this.chartParts = chartParts;
+			this.chartSlots = chartSlots;
+		}
+	}
+
+	public ChartTemplate() {
+		this.shape = new HighChartJS(ID_SLOT);
+		this.shape.setDivId(DIV_SLOT);
+	}
+
+	/**
+	 * The sections of the template to configure.
+	 */
+	public Section getSection(final SectionKeys key) {
+		return this.shape.getSection(key);
+	}
+
+	/**
+	 * Creates a new chart using this template.
+	 */
+	public HighChartJS createChart(final String id) {
+		HighChartJS retval = new HighChartJS(id);
+		retval.setTemplate(this);
+		return retval;
+	}
+
+	/**
+	 * Appends the sections of a chart stamped from this template
+	 * separated by commas.
+	 */
+	void writeSections(final JSWriter writer, final HighChartJS chart) {
+		Compiled code = this.compile();
+		boolean first = true;
+		for (int i = 0; i < KEYS.length; i++) {
+			Section own = chart.getSection(KEYS[i]);
+			boolean override = own.hasOptions();
+			if (!override && code.sectionsJS[i] == null) {
+				continue;
+			}
+			if (!first) {
+				writer.append(", ").append(StringUtils.NEW_LINE);
+			}
+			if (override) {
+				own.writeJS(writer);
+			} else if (KEYS[i] == SectionKeys.SEC_CHART) {
+				this.writeChart(writer, chart, code);
+			} else {
+				writer.append(code.sectionsJS[i]);
+			}
+			first = false;
+		}
+	}
+
+	/**
+	 * Adds the sections of a chart stamped from this template
+	 * to the options object.
+	 */
+	void buildSections(final JSObjectBuilder builder, final HighChartJS chart) {
+		// the sections of the template are read under the lock of compile()
+		synchronized (this) {
+			for (int i = 0; i < KEYS.length; i++) {
+				Section own = chart.getSection(KEYS[i]);
+				Section section = this.shape.getSection(KEYS[i]);
+				if (own.hasOptions()) {
+					own.build(builder);
+				} else if (KEYS[i] == SectionKeys.SEC_CHART) {
+					((SectionChart) section).build(builder, chart);
+				} else if (section.hasJS()) {
+					section.build(builder);
+				}
+			}
+		}
+	}
+
+	/*
+	 * Fills the slots of the chart section.
+	 */
+	private void writeChart(final JSWriter writer, final HighChartJS chart, final Compiled code) {
+		for (int i = 0; i < code.chartSlots.length; i++) {
+			writer.append(code.chartParts[i]);
+			if (code.chartSlots[i] == SLOT_NAME) {
+				writer.append(chart.getJSChartName());
+			} else {
+				writer.append(chart.getDivId());
+			}
+		}
+		writer.append(code.chartParts[code.chartSlots.length]);
+	}
+
+	/*
+	 * The sections keep their code until changed, so a different
+	 * instance means that the section has been modified since the
+	 * last compile.
+	 * The sections cache their code when asked for it, so the charts
+	 * compile under a lock and use the returned code, that is never
+	 * changed afterwards.
+	 */
+	private synchronized Compiled compile() {
+		Compiled last = this.compiled;
+		String[] sectionsJS = null;
+		for (int i = 0; i < KEYS.length; i++) {
+			Section section = this.shape.getSection(KEYS[i]);
+			String js = section.hasJS() ? section.getJS() : null;
+			if (js != last.sectionsJS[i]) {
+				if (sectionsJS == null) {
+					sectionsJS = new String[KEYS.length];
+					System.arraycopy(last.sectionsJS, 0, sectionsJS, 0, KEYS.length);
+				}
+				sectionsJS[i] = js;
+			}
+		}
+		if (sectionsJS != null) {
+			int chart = SectionKeys.SEC_CHART.ordinal();
+			if (sectionsJS[chart] != last.sectionsJS[chart]) {
+				this.compiled = this.compileChart(sectionsJS);
+			} else {
+				this.compiled = new Compiled(sectionsJS, last.chartParts, last.chartSlots);
+			}
+		}
+		return this.compiled;
+	}
+
+	private Compiled compileChart(final String[] sectionsJS) {
+		String js = sectionsJS[SectionKeys.SEC_CHART.ordinal()];
+		if (js == null) {
+			return new Compiled(sectionsJS, null, null);
+		}
+		String nameSlot = this.shape.getJSChartName();
+		List<String> parts = new ArrayList<String>();
+		List<Integer> slots = new ArrayList<Integer>();
+		int from = 0;
+		while (true) {
+			int div = js.indexOf(DIV_SLOT, from);
+			int name = js.indexOf(nameSlot, from);
+			if (div < 0 && name < 0) {
+				break;
+			}
+			boolean isDiv = name < 0 || (div >= 0 && div < name);
+			int at = isDiv ? div : name;
+			parts.add(js.substring(from, at));
+			slots.add(isDiv ? SLOT_DIV : SLOT_NAME);
+			from = at + (isDiv ? DIV_SLOT.length() : nameSlot.length());
+		}
+		parts.add(js.substring(from));
+
+		int[] chartSlots = new int[slots.size()];
+		for (int i = 0; i < chartSlots.length; i++) {
+			chartSlots[i] = slots.get(i);
+		}
+		return new Compiled(sectionsJS, parts.toArray(new String[parts.size()]), chartSlots);
+	}
+}
@@ -0,0 +1,182 @@
+/****************************************************************************
+ *  This software is part of the HighchartsJS adapters for Ext GWT.
+ ****************************************************************************
+ * This library is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this library.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ ****************************************************************************
+ * Filename: Downsampler.java
+ ****************************************************************************
+ * @author <a href="mailto:daniele.strollo@gmail.com">Daniele Strollo</a>
+ ***************************************************************************/
+
+package org.gxt.adapters.highcharts.codegen.types;
+
+/**
+ * Reduces the points of a series to a given number, keeping its
+ * visual shape, so that payload and rendering costs are bounded
+ * regardless of the size of the raw data.
+ * <p>
+ * The points produced always have their x value: for points that
+ * have not one, their position inside the original series is used,
+ * so that they keep their place on the axis.
+ * </p>
+ * @author Daniele Strollo
+ */
+public final class Downsampler {
+	// the lowest number of points LTTB can produce (first, last and one bucket)
+	private static final int MIN_LTTB_THRESHOLD = 3;
+
+	private Downsampler() {
+		// static helpers only
+	}
+
+	/**
+	 * @param data the points to reduce.
+	 * @param type the strategy to use.
+	 * @param threshold the maximum number of points to produce.
+	 * @return the reduced points or the passed ones if already
+	 * within the threshold.
+	 */
+	public static SeriesData downsample(final SeriesData data, final DownsamplingType type, final int threshold) {
+		if (data == null || type == null || threshold <= 0 || data.size() <= threshold) {
+			return data;
+		}
+		switch (type) {
+		case LTTB:
+			return lttb(data, threshold);
+		case MIN_MAX:
+			return minMax(data, threshold);
+		case AVERAGE:
+			return average(data, threshold);
+		default:
+			return data;
+		}
+	}
+
+	private static SeriesData lttb(final SeriesData data, final int requested) {
+		// only the points having a value take part to the selection
+		int[] valid = new int[data.size()];
+		int count = 0;
+		for (int i = 0; i < data.size(); i++) {
+			if (!data.isNull(i)) {
+				valid[count++] = i;
+			}
+		}
+		int threshold = Math.max(requested, MIN_LTTB_THRESHOLD);
+		SeriesData retval = new SeriesData(Math.min(threshold, count));
+		if (count <= threshold) {
+			for (int i = 0; i < count; i++) {
+				retval.addPointOf(data, valid[i]);
+			}
+			return retval;
+		}
+
+		double every = (double) (count - 2) / (threshold - 2);
+		int selected = 0;
+		retval.addPointOf(data, valid[0]);
+		for (int bucket = 0; bucket < threshold - 2; bucket++) {
+			// the average point of the next bucket
+			int avgStart = (int) Math.floor((bucket + 1) * every) + 1;
+			int avgEnd = Math.min((int) Math.floor((bucket + 2) * every) + 1, count);
+			double avgX = 0;
+			double avgY = 0;
+			for (int i = avgStart; i < avgEnd; i++) {
+				avgX += xOf(data, valid[i]);
+				avgY += data.getY(valid[i]);
+			}
+			avgX /= avgEnd - avgStart;
+			avgY /= avgEnd - avgStart;
+
+			// the point of the current bucket forming the largest triangle
+			int rangeStart = (int) Math.floor(bucket * every) + 1;
+			int rangeEnd = (int) Math.floor((bucket + 1) * every) + 1;
+			double ax = xOf(data, valid[selected]);
+			double ay = data.getY(valid[selected]);
+			double maxArea = -1;
+			int next = rangeStart;
+			for (int i = rangeStart; i < rangeEnd; i++) {
+				double area = Math.abs((ax - avgX) * (data.getY(valid[i]) - ay)
+						- (ax - xOf(data, valid[i])) * (avgY - ay));
+				if (area > maxArea) {
+					maxArea = area;
+					next = i;
+				}
+			}
+			retval.addPointOf(data, valid[next]);
+			selected = next;
+		}
+		retval.addPointOf(data, valid[count - 1]);
+		return retval;
+	}
+
+	private static SeriesData minMax(final SeriesData data, final int threshold) {
+		int buckets = Math.max(threshold / 2, 1);
+		SeriesData retval = new SeriesData(buckets * 2);
+		for (int bucket = 0; bucket < buckets; bucket++) {
+			int start = bucketStart(data.size(), buckets, bucket);
+			int end = bucketStart(data.size(), buckets, bucket + 1);
+			int min = -1;
+			int max = -1;
+			for (int i = start; i < end; i++) {
+				if (data.isNull(i)) {
+					continue;
+				}
+				if (min < 0 || data.getY(i) < data.getY(min)) {
+					min = i;
+				}
+				if (max < 0 || data.getY(i) > data.getY(max)) {
+					max = i;
+				}
+			}
+			if (min < 0) {
+				// the whole bucket is missing: keeps the gap
+				retval.addPointOf(data, start);
+			} else if (min == max) {
+				retval.addPointOf(data, min);
+			} else {
+				retval.addPointOf(data, Math.min(min, max));
+				retval.addPointOf(data, Math.max(min, max));
+			}
+		}
+		return retval;
+	}
+
+	private static SeriesData average(final SeriesData data, final int threshold) {
+		SeriesData retval = new SeriesData(threshold);
+		for (int bucket = 0; bucket < threshold; bucket++) {
+			int start = bucketStart(data.size(), threshold, bucket);
+			int end = bucketStart(data.size(), threshold, bucket + 1);
+			double sumX = 0;
+			double sumY = 0;
+			int count = 0;
+			for (int i = start; i < end; i++) {
+				sumX += xOf(data, i);
+				if (!data.isNull(i)) {
+					sumY += data.getY(i);
+					count++;
+				}
+			}
+			retval.add(sumX / (end - start), (count > 0) ? sumY / count : Double.NaN);
+		}
+		return retval;
+	}
+
+	private static int bucketStart(final int size, final int buckets, final int bucket) {
+		return (int) ((long) size * bucket / buckets);
+	}
+
+	private static double xOf(final SeriesData data, final int index) {
+		return data.hasX(index) ? data.getX(index) : index;
+	}
+}
@@ -0,0 +1,50 @@
+/****************************************************************************
+ *  This software is part of the HighchartsJS adapters for Ext GWT.
+ ****************************************************************************
+ * This library is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this library.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ ****************************************************************************
+ * Filename: DownsamplingType.java
+ ****************************************************************************
+ * @author <a href="mailto:daniele.strollo@gmail.com">Daniele Strollo</a>
+ ***************************************************************************/
+
+package org.gxt.adapters.highcharts.codegen.types;
+
+/**
+ * The strategies available to reduce the number of points
+ * of a series before sending them to the browser
+ * (see {@link SeriesType#setDownsampling(DownsamplingType)}).
+ * @author Daniele Strollo
+ */
+public enum DownsamplingType {
+	/**
+	 * Largest-Triangle-Three-Buckets: for each bucket keeps the point
+	 * forming the largest triangle with the previously selected one and
+	 * the average of the next bucket. Best visual fidelity for lines.
+	 * Missing points are not preserved.
+	 */
+	LTTB,
+	/**
+	 * For each bucket keeps the points having the lowest and highest value.
+	 * Preserves peaks (e.g. for alarms and spikes) at the cost of
+	 * two points per bucket.
+	 */
+	MIN_MAX,
+	/**
+	 * For each bucket emits a single point whose x and y are the average
+	 * of the ones in the bucket. Smooths the noise, loses the labels.
+	 */
+	AVERAGE
+}
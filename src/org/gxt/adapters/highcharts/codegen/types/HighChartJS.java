@@ -22,6 +22,7 @@
 
 package org.gxt.adapters.highcharts.codegen.types;
 
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -38,6 +39,9 @@ import org.gxt.adapters.highcharts.codegen.sections.SectionTitle;
 import org.gxt.adapters.highcharts.codegen.sections.SectionTooltip;
 import org.gxt.adapters.highcharts.codegen.sections.SectionXAxis;
 import org.gxt.adapters.highcharts.codegen.sections.SectionYAxis;
+import org.gxt.adapters.highcharts.codegen.types.SeriesType.SeriesDataEntry;
+import org.gxt.adapters.highcharts.codegen.utils.JSObjectBuilder;
+import org.gxt.adapters.highcharts.codegen.utils.JSWriter;
 import org.gxt.adapters.highcharts.codegen.utils.StringUtils;
 
 /**
@@ -47,12 +51,27 @@ import org.gxt.adapters.highcharts.codegen.utils.StringUtils;
  * @author Daniele Strollo
  */
 public class HighChartJS {
+	// expected length of the code of the sections
+	private static final int SECTIONS_LENGTH = 2048;
+	// the charts rendered and not yet destroyed
+	private static int liveCharts = 0;
+	// the operations on the highchart instances (see setBridge)
+	private static ChartBridge bridge = null;
 	private Map<SectionKeys, Section> sections = new HashMap<SectionKeys, Section>();
 	private String id = null;
 	private List<SeriesType> seriesList = new Vector<SeriesType>();
 	private String currDivId = null;
 	private int widthOffset = -1;
 	private int heightOffset = -1;
+	private boolean rendered = false;
+	private ChartRenderer renderer = null;
+	// the width (in pixels) used to downsample the series (0 if unknown)
+	private int plotWidth = 0;
+	// the categories of the x axis on which the labels of the points are mapped
+	private LabelDictionary categories = null;
+	private int categoriesSize = -1;
+	// the template providing the sections not set in this chart
+	private ChartTemplate template = null;
 
 	public HighChartJS(final String id) {
 		if (id != null) {
@@ -117,39 +136,283 @@ public class HighChartJS {
 
 	public final void addSeries(final SeriesType series) {
 		if (series != null) {
+			series.setPlotWidth(this.plotWidth);
+			series.setCategories(this.categories);
 			this.seriesList.add(series);
 		}
 	}
 
+	/**
+	 * The width (in pixels) of the area in which the chart is drawn.
+	 * Downsampled series keep about one point per pixel
+	 * (see {@link SeriesType#setDownsampling(DownsamplingType)}).
+	 * The new width is applied at next rendering.
+	 * @param width 0 if not known.
+	 */
+	public final void setPlotWidth(final int width) {
+		this.plotWidth = Math.max(width, 0);
+		for (SeriesType series : this.seriesList) {
+			series.setPlotWidth(this.plotWidth);
+		}
+	}
+
+	/**
+	 * Uses the labels of the points as categories of the x axis: each
+	 * label is written once in the axis and the points refer it by
+	 * position (e.g. [2, 14] instead of {name: 'March', y: 14}).
+	 * @param dictionary the categories (a new dictionary or one shared
+	 * by charts having the same categories, since all its labels are
+	 * written in the axis), null to write the labels inside the points.
+	 */
+	public final void setLabelCategories(final LabelDictionary dictionary) {
+		this.categories = dictionary;
+		this.categoriesSize = -1;
+		for (SeriesType series : this.seriesList) {
+			series.setCategories(dictionary);
+		}
+		if (dictionary == null) {
+			((SectionXAxis) this.sections.get(SectionKeys.SEC_XAXIS)).setCategories(null);
+		}
+	}
+
+	/*
+	 * Collects the labels of the series and updates the categories
+	 * of the x axis (only if new labels have been found).
+	 */
+	private void updateCategories() {
+		if (this.categories == null) {
+			return;
+		}
+		for (SeriesType series : this.seriesList) {
+			series.internLabels();
+		}
+		if (this.categoriesSize != this.categories.size()) {
+			this.categoriesSize = this.categories.size();
+			((SectionXAxis) this.sections.get(SectionKeys.SEC_XAXIS)).setCategories(this.categories.getLabels());
+		}
+	}
+
+	/**
+	 * Stamps this chart from a template: the sections without options
+	 * are taken from the template, whose code is generated once
+	 * for all the charts using it (see {@link ChartTemplate}).
+	 * @param template null to use only the sections of this chart.
+	 */
+	public final void setTemplate(final ChartTemplate template) {
+		this.template = template;
+	}
+
+	public final ChartTemplate getTemplate() {
+		return this.template;
+	}
+
+	/*
+	 * The section used at rendering: the one of the template
+	 * if this chart has no options for it.
+	 */
+	final Section getEffectiveSection(final SectionKeys key) {
+		Section retval = this.sections.get(key);
+		if (this.template != null && !retval.hasOptions()) {
+			return this.template.getSection(key);
+		}
+		return retval;
+	}
+
+	/**
+	 * The number of points rendered by the chart (i.e. after downsampling).
+	 */
+	public final int getRenderedPointsCount() {
+		int retval = 0;
+		for (SeriesType series : this.seriesList) {
+			retval += series.getRenderedData().size();
+		}
+		return retval;
+	}
+
+	final List<SeriesType> getSeriesList() {
+		return this.seriesList;
+	}
+
+	final boolean hasLabelCategories() {
+		return this.categories != null;
+	}
+
+	/**
+	 * Brings this chart to the state of another one (e.g. rebuilt by a
+	 * polling loop), taking its options and series.
+	 * If the chart is rendered only the differences are applied to the
+	 * highchart instance (see {@link ChartDiff}), so that the cost of
+	 * the update depends on the size of the changes; if they cannot be
+	 * applied in place the chart is rendered again.
+	 * @param state the new state, its series are moved to this chart.
+	 * @return the changes applied.
+	 */
+	public final UpdatePlan update(final HighChartJS state) {
+		UpdatePlan plan = ChartDiff.diff(this, state);
+		this.adopt(state);
+		if (this.isLive() && !plan.isEmpty()) {
+			this.checkUpdate(!plan.isFullRender() && getBridge().applyUpdates(this.getJSChartName(), plan.getJS()));
+		}
+		return plan;
+	}
+
+	/*
+	 * Takes the options and the series of another chart.
+	 * The sections not changed keep their cached code.
+	 */
+	private void adopt(final HighChartJS state) {
+		for (SectionKeys key : SectionKeys.values()) {
+			Section section = this.sections.get(key);
+			Section source = state.sections.get(key);
+			if (!section.getOptionsJS().equals(source.getOptionsJS())) {
+				section.copyOptions(source);
+			}
+		}
+		this.template = state.template;
+		this.seriesList.clear();
+		for (SeriesType series : state.seriesList) {
+			this.addSeries(series);
+		}
+		if (this.categories != state.categories) {
+			this.setLabelCategories(state.categories);
+		}
+	}
+
 	public final String getJS() {
-		StringBuilder retval = new StringBuilder();
-		retval.append("<script type=\"text/javascript\">" + StringUtils.NEW_LINE);
-		retval.append("var " + this.getJSChartName() + " = new $wnd.Highcharts.Chart({" + StringUtils.NEW_LINE);
+		JSWriter writer = new JSWriter(this.getJSLength());
+		this.writeJS(writer);
+		return writer.toString();
+	}
+
+	/**
+	 * The expected length (in chars) of the generated code,
+	 * mostly driven by the number of points in the series.
+	 */
+	private int getJSLength() {
+		int retval = SECTIONS_LENGTH;
+		for (SeriesType series : this.seriesList) {
+			retval += series.getJSLength();
+		}
+		return retval;
+	}
+
+	/**
+	 * Appends the whole code of the chart.
+	 * Only the sections and series changed since the last invocation
+	 * are generated again, for the others the cached code is used.
+	 * @param writer the buffer in which the chart is appended.
+	 */
+	public final void writeJS(final JSWriter writer) {
+		writer.append("<script type=\"text/javascript\">").append(StringUtils.NEW_LINE);
+		writer.append("var ").append(this.getJSChartName()).append(" = new $wnd.Highcharts.Chart(");
+		this.writeOptions(writer);
+		writer.append(");");
+		writer.append(StringUtils.NEW_LINE).append("</script>");
+	}
+
+	/**
+	 * Appends only the options object of the chart (i.e. the object
+	 * literal passed to the constructor of the highchart), without
+	 * the script creating it.
+	 * If the writer streams its content (e.g. on the server) the series
+	 * not cached are written directly, so that their code is never
+	 * kept in memory as a whole.
+	 * @param writer the buffer in which the options are appended.
+	 */
+	public final void writeOptions(final JSWriter writer) {
+		this.updateCategories();
+		writer.append('{').append(StringUtils.NEW_LINE);
 
 		// The sections
-		List<String> entries = new Vector<String>();
-		for (Section section : sections.values()) {
-			entries.add(section.getJS());
+		boolean first = true;
+		if (this.template != null) {
+			this.template.writeSections(writer, this);
+		} else {
+			for (Section section : sections.values()) {
+				if (section.hasJS()) {
+					if (!first) {
+						writer.append(", ").append(StringUtils.NEW_LINE);
+					}
+					section.writeJS(writer);
+					first = false;
+				}
+			}
 		}
-		retval.append(StringUtils.join(entries, ", " + StringUtils.NEW_LINE));
 		// End of block
-		retval.append("," + StringUtils.NEW_LINE);
+		writer.append(',').append(StringUtils.NEW_LINE);
 
 		if (this.seriesList != null && this.seriesList.size() > 0) {
 			// The series entries
-			entries = new Vector<String>();
+			writer.append("series: [").append(StringUtils.NEW_LINE);
+			first = true;
 			for (SeriesType series : this.seriesList) {
-				entries.add(series.getJS());
+				if (!first) {
+					writer.append(", ").append(StringUtils.NEW_LINE);
+				}
+				series.writeJS(writer);
+				first = false;
 			}
-			retval.append("series: [" + StringUtils.NEW_LINE +
-					StringUtils.join(entries, ", " + StringUtils.NEW_LINE) +
-					StringUtils.NEW_LINE + "],");
-			retval.append(StringUtils.NEW_LINE);
+			writer.append(StringUtils.NEW_LINE).append("],");
+			writer.append(StringUtils.NEW_LINE);
 		}
 
-		retval.append("});");
-		retval.append(StringUtils.NEW_LINE + "</script>");
-		return retval.toString();
+		writer.append('}');
+	}
+
+	/**
+	 * Drops the cached code of all the sections and series,
+	 * so that at next rendering the whole chart is generated.
+	 */
+	public final void invalidateJS() {
+		for (Section section : this.sections.values()) {
+			section.invalidateJS();
+		}
+		for (SeriesType series : this.seriesList) {
+			series.invalidateJS();
+		}
+	}
+
+	/**
+	 * Builds the options object of the chart (i.e. the object passed to
+	 * the constructor of the highchart).
+	 * @param builder the builder of the object.
+	 */
+	public final void build(final JSObjectBuilder builder) {
+		this.updateCategories();
+		builder.beginObject(null);
+		if (this.template != null) {
+			this.template.buildSections(builder, this);
+		} else {
+			for (Section section : sections.values()) {
+				if (section.hasJS()) {
+					section.build(builder);
+				}
+			}
+		}
+		if (this.seriesList.size() > 0) {
+			builder.beginArray("series");
+			for (SeriesType series : this.seriesList) {
+				series.build(builder);
+			}
+			builder.endArray();
+		}
+		builder.endObject();
+	}
+
+	/**
+	 * The renderer to use for creating the highchart instance.
+	 * @param renderer if null the chart script is generated
+	 * and evaluated inside the container.
+	 */
+	public final void setRenderer(final ChartRenderer renderer) {
+		this.renderer = renderer;
+	}
+
+	/**
+	 * @return null if the chart script is evaluated inside the container.
+	 */
+	public final ChartRenderer getRenderer() {
+		return this.renderer;
 	}
 
 	public final String getId() {
@@ -162,6 +425,8 @@ public class HighChartJS {
 
 	public final void setDivId(final String containerDiv) {
 		this.currDivId = containerDiv;
+		// the chart section refers the container
+		this.sections.get(SectionKeys.SEC_CHART).invalidateJS();
 	}
 
 	public final String getDivId() {
@@ -169,32 +434,247 @@ public class HighChartJS {
 	}
 
 	public final void doRender() {
-		this.injectJS(this.currDivId, this.getJS());
+		this.render(this.renderer);
 		this.doResize();
 	}
 
-	public final void doResize() {
-		this.resize(this.getJSChartName(), this.widthOffset, this.heightOffset);
+	/**
+	 * Renders the chart through the given renderer without resizing it
+	 * (e.g. when the resize is applied at once to a batch of charts).
+	 * @param chartRenderer if null the chart script is generated
+	 * and evaluated inside the container.
+	 */
+	public final void render(final ChartRenderer chartRenderer) {
+		// the previous instance must release its resources
+		this.destroy();
+		if (chartRenderer != null) {
+			chartRenderer.render(this);
+		} else {
+			injectJS(this.currDivId, this.getJS());
+		}
+		for (SeriesType series : this.seriesList) {
+			series.setRendered();
+		}
+		this.rendered = true;
+		liveCharts++;
 	}
 
-	public final void setUseParent(final boolean useParent) {
-		this.setUseParent(this.getJSChartName(), useParent);
+	/**
+	 * Destroys the highchart instance (if rendered), releasing its
+	 * DOM elements and event handlers, and removes it from the charts
+	 * registered in the page.
+	 * The chart can be rendered again later (see {@link #doRender()}).
+	 */
+	public final void destroy() {
+		if (!this.rendered) {
+			return;
+		}
+		this.rendered = false;
+		liveCharts--;
+		getBridge().destroyChart(this.getJSChartName());
+	}
+
+	/**
+	 * @return true if the chart has been rendered and not destroyed.
+	 */
+	public final boolean isRendered() {
+		return this.rendered;
+	}
+
+	/**
+	 * The number of charts rendered and not yet destroyed
+	 * (for monitoring purposes).
+	 */
+	public static int getLiveChartsCount() {
+		return liveCharts;
+	}
+
+	/**
+	 * The number of charts registered inside the page
+	 * (for monitoring purposes).
+	 * Should match {@link #getLiveChartsCount()}, a greater value
+	 * means that some chart has not been destroyed.
+	 */
+	public static int getRegisteredChartsCount() {
+		return getBridge().getRegisteredChartsCount();
+	}
+
+	/**
+	 * Appends a point to a series of the chart.
+	 * If the chart has been already rendered the point is pushed directly
+	 * to the highchart instance (i.e. without regenerating the whole chart).
+	 * @param series a series already added to this chart.
+	 * @param point the point to append.
+	 * @param shift if true the oldest point of the series is removed
+	 * (e.g. to keep constant the number of points in live charts).
+	 */
+	public final void addPoint(final SeriesType series, final SeriesDataEntry point, final boolean shift) {
+		if (point != null) {
+			this.addPoints(series, Collections.singletonList(point), shift);
+		}
+	}
+
+	/**
+	 * Appends a batch of points to a series of the chart.
+	 * The chart is redrawn only once at the end of the batch.
+	 * @param series a series already added to this chart.
+	 * @param points the points to append.
+	 * @param shift if true, for each added point, the oldest one is removed.
+	 * Series having a window (see {@link SeriesType#setWindow(int)}) shift
+	 * anyway once full.
+	 */
+	public final void addPoints(final SeriesType series, final List<SeriesDataEntry> points, final boolean shift) {
+		int index = this.seriesList.indexOf(series);
+		if (index < 0 || points == null || points.size() == 0) {
+			return;
+		}
+		// the position of the first point evicting the oldest one
+		int shiftFrom = shift ? 0 : points.size();
+		int i = 0;
+		for (SeriesDataEntry point : points) {
+			boolean full = series.isFull();
+			series.addEntry(point);
+			if (full) {
+				shiftFrom = Math.min(shiftFrom, i);
+			} else if (shift) {
+				series.removeFirstEntry();
+			}
+			i++;
+		}
+		if (this.isLive()) {
+			this.checkUpdate(this.isIncremental(series)
+					? getBridge().addPoints(this.getJSChartName(), index, SeriesType.getDataJS(points), shiftFrom)
+					: this.replaceData(index, series));
+		}
+	}
+
+	/**
+	 * Replaces all the points of a series.
+	 * @param series a series already added to this chart.
+	 * @param points the new points of the series.
+	 */
+	public final void setData(final SeriesType series, final List<SeriesDataEntry> points) {
+		int index = this.seriesList.indexOf(series);
+		if (index < 0) {
+			return;
+		}
+		series.setEntries(points);
+		if (this.isLive()) {
+			this.checkUpdate(this.replaceData(index, series));
+		}
+	}
+
+	/**
+	 * Shows other points for a series of the rendered chart without
+	 * changing the series (e.g. the detail of the range zoomed by the
+	 * user). Once rendered again the chart shows the points of the series.
+	 * While other points are shown the changes of the series replace
+	 * them with all its points (see {@link SeriesType#isDetached()}).
+	 * Not supported by the charts placing the points on categories.
+	 * @param series a series already added to this chart.
+	 * @param data the points to show, null for the ones of the series.
+	 * @return true if the points have been shown.
+	 */
+	public final boolean showData(final SeriesType series, final SeriesData data) {
+		int index = this.seriesList.indexOf(series);
+		if (index < 0 || !this.isLive() || this.categories != null) {
+			return false;
+		}
+		SeriesData points = (data != null) ? data : series.getRenderedData();
+		boolean retval = getBridge().setData(this.getJSChartName(), index, SeriesType.getDataJS(points, 0, points.size()));
+		if (retval) {
+			series.setDataReplaced(data == null);
+		}
+		return retval;
+	}
+
+	/**
+	 * Changes the value of an existing point of a series.
+	 * @param series a series already added to this chart.
+	 * @param pointIndex the position of the point inside the series.
+	 * @param point the new value.
+	 */
+	public final void updatePoint(final SeriesType series, final int pointIndex, final SeriesDataEntry point) {
+		int index = this.seriesList.indexOf(series);
+		if (index < 0 || point == null || pointIndex < 0 || pointIndex >= series.size()) {
+			return;
+		}
+		series.setEntry(pointIndex, point);
+		if (this.isLive()) {
+			this.checkUpdate(this.isIncremental(series)
+					? getBridge().updatePoint(this.getJSChartName(), index, pointIndex, point.getJS())
+					: this.replaceData(index, series));
+		}
 	}
 
 	/**
-	 * The id of the container responsible to handle the resize of this
-	 * component.
-	 * @param chartId
-	 * @param widthOffset
-	 * @param heightOffset
+	 * Removes a series from the chart.
+	 * @param series a series already added to this chart.
+	 */
+	public final void removeSeries(final SeriesType series) {
+		int index = this.seriesList.indexOf(series);
+		if (index < 0) {
+			return;
+		}
+		this.seriesList.remove(index);
+		if (this.isLive()) {
+			this.checkUpdate(getBridge().removeSeries(this.getJSChartName(), index));
+		}
+	}
+
+	/*
+	 * Incremental updates are applied only once the chart is in the page.
+	 * Before that moment the changes on the series are simply
+	 * collected and will be part of the first rendering.
+	 */
+	private boolean isLive() {
+		return this.rendered && this.currDivId != null;
+	}
+
+	/*
+	 * The points of downsampled series and the ones placed on categories
+	 * are not the same of the model, so they cannot be updated one by one.
+	 * The same for the points in the browser not at the positions of
+	 * the model ones (see SeriesType#isDetached()).
 	 */
-	private native void setUseParent(final String chartId, final boolean useParent) /*-{
-		$wnd.setUseParent(chartId, useParent);
-	}-*/;
+	private boolean isIncremental(final SeriesType series) {
+		return series.getDownsampling() == null && this.categories == null && !series.isDetached();
+	}
+
+	/*
+	 * Sends again all the points of a series (if they are the ones of the model).
+	 */
+	private boolean replaceData(final int index, final SeriesType series) {
+		if (series.getDownsampling() != null || this.categories != null) {
+			return false;
+		}
+		SeriesData data = series.getRenderedData();
+		boolean retval = getBridge().setData(this.getJSChartName(), index, SeriesType.getDataJS(data, 0, data.size()));
+		if (retval) {
+			series.setDataReplaced(true);
+		}
+		return retval;
+	}
 
-	private native void resize(final String chartId, final int widthOffset, final int heightOffset) /*-{
-		$wnd.resizeChart(chartId, widthOffset, heightOffset);
-	}-*/;
+	/*
+	 * If the highchart instance is not able to apply an incremental
+	 * update (e.g. it has been not registered yet) the whole
+	 * chart is rendered again.
+	 * The same happens for series not updatable incrementally.
+	 */
+	private void checkUpdate(final boolean applied) {
+		if (!applied) {
+			this.doRender();
+		}
+	}
+
+	public final void doResize() {
+		getBridge().resizeChart(this.getJSChartName(), this.widthOffset, this.heightOffset);
+	}
+
+	public final void setUseParent(final boolean useParent) {
+		getBridge().setUseParent(this.getJSChartName(), useParent);
+	}
 
 	public final void setWidthOffset(final int widthOffset) {
 		if (widthOffset >= 0) {
@@ -208,20 +688,41 @@ public class HighChartJS {
 		}
 	}
 
-	/*
-	 * Used internally on render phase.
+	/**
+	 * @return -1 if the default one of the container must be used.
 	 */
-	private native void injectJS(final String divID, final String jsCode) /*-{
-		var theContainer = $doc.getElementById(divID);
-		if (theContainer != null && jsCode != null) {
-			theContainer.innerHTML = jsCode;
+	public final int getWidthOffset() {
+		return this.widthOffset;
+	}
 
-			var x = theContainer.getElementsByTagName("script");
-			for(var i=0; i < x.length; i++) {
-				eval(x[i].text);
-			}
-		} else {
-			alert('div: ' + divID + ' not found ');
+	/**
+	 * @return -1 if the default one of the container must be used.
+	 */
+	public final int getHeightOffset() {
+		return this.heightOffset;
+	}
+
+	/**
+	 * Writes the code of a chart (see {@link #getJS()}) inside its
+	 * container and evaluates its scripts.
+	 */
+	public static void injectJS(final String divID, final String jsCode) {
+		getBridge().injectJS(divID, jsCode);
+	}
+
+	/**
+	 * Installs the bridge towards the highchart instances of the page.
+	 * Done by the widgets on the client, not needed for generating
+	 * the code of the charts (e.g. on the server).
+	 */
+	public static void setBridge(final ChartBridge chartBridge) {
+		bridge = chartBridge;
+	}
+
+	private static ChartBridge getBridge() {
+		if (bridge == null) {
+			throw new IllegalStateException("No ChartBridge installed: charts can be rendered only on the client");
 		}
-	}-*/;
+		return bridge;
+	}
 }
@@ -0,0 +1,99 @@
+/****************************************************************************
+ *  This software is part of the HighchartsJS adapters for Ext GWT.
+ ****************************************************************************
+ * This library is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this library.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ ****************************************************************************
+ * Filename: LabelDictionary.java
+ ****************************************************************************
+ * @author <a href="mailto:daniele.strollo@gmail.com">Daniele Strollo</a>
+ ***************************************************************************/
+
+package org.gxt.adapters.highcharts.codegen.types;
+
+import java.io.Serializable;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Vector;
+
+/**
+ * Stores each label once and identifies it by its position.
+ * A dictionary can be shared by several series (see
+ * {@link SeriesData#SeriesData(int, LabelDictionary)}), also of different
+ * charts, so that labels repeated among them are kept only once, and it
+ * can be used as categories of the x axis of a chart (see
+ * {@link HighChartJS#setLabelCategories(LabelDictionary)}: in that case
+ * all its labels become categories, so it should be shared only by
+ * charts having the same categories).
+ * <p>
+ * Labels are only added, so their positions never change.
+ * A dictionary can be used by several threads (e.g. charts generated
+ * on the server).
+ * </p>
+ * @author Daniele Strollo
+ */
+public final class LabelDictionary implements Serializable {
+	private static final long serialVersionUID = 1L;
+	private List<String> labels = new Vector<String>();
+	private transient Map<String, Integer> index = null;
+
+	public LabelDictionary() {
+	}
+
+	/**
+	 * Adds the label if not already contained.
+	 * @return the position of the label.
+	 */
+	public synchronized int intern(final String label) {
+		int retval = this.indexOf(label);
+		if (retval < 0) {
+			this.labels.add(label);
+			retval = this.labels.size() - 1;
+			this.index.put(label, retval);
+		}
+		return retval;
+	}
+
+	/**
+	 * @return the position of the label or -1 if not contained.
+	 */
+	public synchronized int indexOf(final String label) {
+		if (this.index == null) {
+			// rebuilt after deserialization
+			this.index = new HashMap<String, Integer>();
+			for (int i = 0; i < this.labels.size(); i++) {
+				this.index.put(this.labels.get(i), i);
+			}
+		}
+		Integer retval = this.index.get(label);
+		return (retval != null) ? retval : -1;
+	}
+
+	public String get(final int position) {
+		return this.labels.get(position);
+	}
+
+	public int size() {
+		return this.labels.size();
+	}
+
+	/**
+	 * The labels in order of position (read only).
+	 */
+	public List<String> getLabels() {
+		return Collections.unmodifiableList(this.labels);
+	}
+}
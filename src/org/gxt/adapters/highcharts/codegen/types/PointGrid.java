@@ -0,0 +1,202 @@
+/****************************************************************************
+ *  This software is part of the HighchartsJS adapters for Ext GWT.
+ ****************************************************************************
+ * This library is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this library.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ ****************************************************************************
+ * Filename: PointGrid.java
+ ****************************************************************************
+ * @author <a href="mailto:daniele.strollo@gmail.com">Daniele Strollo</a>
+ ***************************************************************************/
+
+package org.gxt.adapters.highcharts.codegen.types;
+
+import org.gxt.adapters.highcharts.codegen.utils.JSObjectBuilder;
+import org.gxt.adapters.highcharts.codegen.utils.JSWriter;
+
+/**
+ * The regular spacing of the x values of a series (e.g. samples taken
+ * every minute), used to write the points without their x and let
+ * highcharts compute it through the pointStart and pointInterval
+ * options of the series.
+ * <p>
+ * Highcharts assigns to each point without x the value
+ * pointStart + n * pointInterval, where n counts only those points:
+ * so a point is written without x only if its x is the next one of
+ * the grid, otherwise it keeps its x. To keep using the grid after a
+ * gap (e.g. a missing sample) the missing samples are filled with null
+ * points: if the series has no missing points of its own they are
+ * connected (connectNulls, written only if some gap is filled), so that
+ * the line looks as if the points kept their x, otherwise they are
+ * filled only on request (they break the line as the other missing points).
+ * </p>
+ * <p>
+ * Once filled, the points in the browser are no more at the positions
+ * of the ones of the series (see {@link #hasFilled()}).
+ * </p>
+ * @author Daniele Strollo
+ */
+final class PointGrid {
+	// the error allowed on exact grids (floating point rounding)
+	private static final double EPSILON = 1e-9;
+	// the maximum number of null points inserted for a single gap
+	private static final int MAX_FILLED_GAP = 256;
+	// the number of intervals among which the step is detected
+	private static final int STEP_PREFIX = 64;
+	private SeriesData data = null;
+	private double start = 0;
+	private double step = 0;
+	private boolean floatingStep = false;
+	private double tolerance = 0;
+	private boolean fillGaps = false;
+	// true if the null points inserted are connected
+	private boolean connectGaps = false;
+	// true once a null point has been inserted
+	private boolean filled = false;
+	// the position on the grid of the next point without x
+	private long slot = 0;
+
+	private PointGrid() {
+	}
+
+	/**
+	 * Detects the grid from the first points of the series: the interval
+	 * is the smallest one among them (so that a missing sample does not
+	 * double it) and at least half of them must be its multiples.
+	 * @param data the points of the series.
+	 * @param tolerance the maximum distance of a point from the grid
+	 * (as fraction of the interval, e.g. 0.01 for 1%).
+	 * @param fillGaps if true missing samples are written as null points
+	 * breaking the line, otherwise they are connected (only for series
+	 * without missing points).
+	 * @return null if not all the points have x or they are not increasing.
+	 */
+	static PointGrid detect(final SeriesData data, final double tolerance, final boolean fillGaps) {
+		if (data.size() < 2) {
+			return null;
+		}
+		boolean hasNulls = false;
+		for (int i = 0; i < data.size(); i++) {
+			if (!data.hasX(i)) {
+				return null;
+			}
+			hasNulls = hasNulls || data.isNull(i);
+		}
+		int last = Math.min(data.size(), STEP_PREFIX + 1);
+		double step = 0;
+		int first = 0;
+		for (int i = 1; i < last; i++) {
+			double delta = data.getX(i) - data.getX(i - 1);
+			if (delta > 0 && (step == 0 || delta < step)) {
+				step = delta;
+				first = i - 1;
+			}
+		}
+		if (!(step > 0)) {
+			return null;
+		}
+		PointGrid retval = new PointGrid();
+		retval.data = data;
+		retval.start = data.getX(0);
+		retval.step = step;
+		retval.floatingStep = data.isFloatX(first) || data.isFloatX(first + 1);
+		retval.tolerance = Math.max(tolerance, EPSILON);
+		int regular = 0;
+		for (int i = 1; i < last; i++) {
+			double multiple = (data.getX(i) - data.getX(i - 1)) / step;
+			if (multiple >= 1 - retval.tolerance && Math.abs(multiple - Math.round(multiple)) <= retval.tolerance) {
+				regular++;
+			}
+		}
+		if (regular * 2 < last - 1) {
+			return null;
+		}
+		retval.fillGaps = fillGaps;
+		// connects the gaps only if some will be filled
+		retval.connectGaps = !fillGaps && !hasNulls && retval.fills();
+		return retval;
+	}
+
+	/**
+	 * Appends the options of the series describing the grid
+	 * (e.g. pointStart: 0, pointInterval: 60000, ).
+	 */
+	void writeJS(final JSWriter writer) {
+		writer.append("pointStart: ");
+		this.data.writeX(writer, 0);
+		writer.append(", pointInterval: ").appendNumber(this.step, this.floatingStep).append(", ");
+		if (this.connectGaps) {
+			writer.append("connectNulls: true, ");
+		}
+	}
+
+	void build(final JSObjectBuilder builder) {
+		builder.addNumber("pointStart", this.data.getJSX(0));
+		builder.addNumber("pointInterval", this.step);
+		if (this.connectGaps) {
+			builder.addBoolean("connectNulls", true);
+		}
+	}
+
+	/**
+	 * @return true if null points have been inserted so far.
+	 */
+	boolean hasFilled() {
+		return this.filled;
+	}
+
+	/**
+	 * Must be invoked for each point in order.
+	 * @return -1 if the point must keep its x, otherwise the number of
+	 * null points to insert before writing it without x.
+	 */
+	long place(final int index) {
+		double x = this.data.getX(index);
+		if (this.isOnGrid(x, this.slot)) {
+			this.slot++;
+			return 0;
+		}
+		if (this.fillGaps || this.connectGaps) {
+			long position = Math.round((x - this.start) / this.step);
+			if (position > this.slot && position - this.slot <= MAX_FILLED_GAP && this.isOnGrid(x, position)) {
+				long gap = position - this.slot;
+				this.slot = position + 1;
+				this.filled = true;
+				return gap;
+			}
+		}
+		return -1;
+	}
+
+	/*
+	 * True if placing the points some null point is inserted.
+	 * Leaves the grid ready for placing them again.
+	 */
+	private boolean fills() {
+		boolean connect = this.connectGaps;
+		this.connectGaps = true;
+		boolean retval = false;
+		for (int i = 0; i < this.data.size() && !retval; i++) {
+			retval = this.place(i) > 0;
+		}
+		this.connectGaps = connect;
+		this.slot = 0;
+		this.filled = false;
+		return retval;
+	}
+
+	private boolean isOnGrid(final double x, final long position) {
+		return Math.abs(x - (this.start + position * this.step)) <= this.step * this.tolerance;
+	}
+}
@@ -0,0 +1,936 @@
+/****************************************************************************
+ *  This software is part of the HighchartsJS adapters for Ext GWT.
+ ****************************************************************************
+ * This library is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this library.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ ****************************************************************************
+ * Filename: SeriesData.java
+ ****************************************************************************
+ * @author <a href="mailto:daniele.strollo@gmail.com">Daniele Strollo</a>
+ ***************************************************************************/
+
+package org.gxt.adapters.highcharts.codegen.types;
+
+import java.io.Serializable;
+
+import org.gxt.adapters.highcharts.codegen.types.SeriesType.SeriesDataEntry;
+import org.gxt.adapters.highcharts.codegen.utils.JSObjectBuilder;
+import org.gxt.adapters.highcharts.codegen.utils.JSWriter;
+
+/**
+ * Columnar storage of the points of a series.
+ * Instead of keeping an object for each point, the x and y values are
+ * stored inside growable arrays of primitive doubles, while:
+ * <ul>
+ * <li>missing points (i.e. y null) and the presence of the optional x
+ * are tracked by bitmaps;
+ * <li>the labels of the points are stored once inside a dictionary
+ * (that can be also shared among several series, see {@link LabelDictionary})
+ * and the points simply refer their position in it.
+ * </ul>
+ * For each value is also kept if it was an integral number or a float,
+ * so that the generated javascript is the same as the one obtained by
+ * the original {@link Number} (e.g. 5 and not 5.0, 0.1 and not
+ * 0.10000000149011612).
+ * <p>
+ * <b>Notice:</b> numbers are kept as doubles, so longs greater than
+ * 2<sup>53</sup> lose precision.
+ * </p>
+ * <p>
+ * The columns are used as circular buffers: removing the first point
+ * costs O(1) and, if a window is set (see {@link #setWindow(int)}), the
+ * series keeps only its latest points and each new point takes the
+ * place of the oldest one without any allocation.
+ * </p>
+ * @author Daniele Strollo
+ */
+public final class SeriesData implements Serializable {
+	private static final long serialVersionUID = 1L;
+	private static final int DEFAULT_CAPACITY = 16;
+	private static final int BITS = 32;
+	private static final int BITS_SHIFT = 5;
+
+	private int size = 0;
+	// the slot of the first point inside the columns
+	private int head = 0;
+	// the max number of points kept (0 means unbounded)
+	private int window = 0;
+	private double[] ys = null;
+	// allocated at the first point having an x
+	private double[] xs = null;
+	private int[] nullY = null;
+	private int[] hasX = null;
+	private int[] floatY = null;
+	private int[] floatX = null;
+	// allocated at the first float value (written in single precision)
+	private int[] float32Y = null;
+	private int[] float32X = null;
+	// allocated at the first labeled point (0 means no label)
+	private int[] labelRefs = null;
+	private LabelDictionary dictionary = null;
+	// false if the dictionary has been passed by the user
+	private boolean ownDictionary = true;
+	// incremented at each change of the points
+	private transient int version = 0;
+
+	public SeriesData() {
+		this(DEFAULT_CAPACITY);
+	}
+
+	/**
+	 * @param capacity the number of points expected in the series.
+	 */
+	public SeriesData(final int capacity) {
+		int initial = Math.max(capacity, 1);
+		this.ys = new double[initial];
+		this.nullY = new int[bitmapLength(initial)];
+		this.floatY = new int[bitmapLength(initial)];
+	}
+
+	/**
+	 * @param capacity the number of points expected in the series.
+	 * @param dictionary where the labels of the points are stored,
+	 * can be shared with other series (also of other charts).
+	 */
+	public SeriesData(final int capacity, final LabelDictionary dictionary) {
+		this(capacity);
+		if (dictionary != null) {
+			this.dictionary = dictionary;
+			this.ownDictionary = false;
+		}
+	}
+
+	public int size() {
+		return this.size;
+	}
+
+	/**
+	 * A counter that changes each time the points are modified.
+	 * Can be used to know if the points changed since a given moment.
+	 */
+	public int getVersion() {
+		return this.version;
+	}
+
+	/**
+	 * Appends a point expressed by its boxed values.
+	 * @param x can be null.
+	 * @param y can be null (missing point).
+	 * @param label can be null.
+	 */
+	public void add(final Number x, final Number y, final String label) {
+		this.version++;
+		this.setSlot(this.append(), x, y, label);
+	}
+
+	public void add(final SeriesDataEntry entry) {
+		this.add(entry.getX(), entry.getY(), entry.getLabel());
+	}
+
+	/**
+	 * Appends a point without x. NaN is considered a missing point.
+	 */
+	public void add(final double y) {
+		this.version++;
+		this.setY(this.append(), y);
+	}
+
+	/**
+	 * Appends a point with x. If y is NaN the point is considered missing.
+	 */
+	public void add(final double x, final double y) {
+		this.version++;
+		int slot = this.append();
+		this.setX(slot, x);
+		this.setY(slot, y);
+	}
+
+	/**
+	 * Bulk append of points without x.
+	 * NaN values are considered missing points.
+	 */
+	public void addAll(final double[] values) {
+		if (values == null) {
+			return;
+		}
+		this.version++;
+		this.reserve(values.length);
+		for (int i = 0; i < values.length; i++) {
+			this.setY(this.append(), values[i]);
+		}
+	}
+
+	/**
+	 * Bulk append of points with both x and y.
+	 * The arrays must have the same length.
+	 * NaN y values are considered missing points.
+	 */
+	public void addAll(final double[] xValues, final double[] yValues) {
+		if (xValues == null) {
+			this.addAll(yValues);
+			return;
+		}
+		if (yValues == null || xValues.length != yValues.length) {
+			throw new IllegalArgumentException("x and y must have the same number of values");
+		}
+		this.version++;
+		this.reserve(yValues.length);
+		for (int i = 0; i < yValues.length; i++) {
+			int slot = this.append();
+			this.setX(slot, xValues[i]);
+			this.setY(slot, yValues[i]);
+		}
+	}
+
+	/**
+	 * Replaces the point at the given position.
+	 */
+	public void set(final int index, final Number x, final Number y, final String label) {
+		this.version++;
+		this.checkIndex(index);
+		this.setSlot(this.slot(index), x, y, label);
+	}
+
+	public void set(final int index, final SeriesDataEntry entry) {
+		this.set(index, entry.getX(), entry.getY(), entry.getLabel());
+	}
+
+	/**
+	 * Appends a copy of a point of another series keeping its representation.
+	 * If the point has no x its position inside the source is used instead,
+	 * so that the point keeps its place on the axis.
+	 */
+	void addPointOf(final SeriesData source, final int index) {
+		this.version++;
+		int pos = this.append();
+		if (source.hasX(index)) {
+			this.setX(pos, source.getX(index));
+			setBit(this.floatX, pos, source.isFloatX(index));
+			this.setFloat32X(pos, source.isFloat32X(index));
+		} else {
+			this.setX(pos, index);
+			setBit(this.floatX, pos, false);
+		}
+		this.setY(pos, source.isNull(index) ? Double.NaN : source.getY(index));
+		setBit(this.floatY, pos, source.isFloatY(index));
+		this.setFloat32Y(pos, source.isFloat32Y(index));
+		this.setLabel(pos, source.getLabel(index));
+	}
+
+	/**
+	 * Removes the first point. No point is moved.
+	 */
+	public void removeFirst() {
+		if (this.size == 0) {
+			return;
+		}
+		this.version++;
+		this.head = this.next(this.head);
+		this.size--;
+		if (this.size == 0) {
+			this.head = 0;
+		}
+	}
+
+	/**
+	 * Limits the series to its latest points: once the window is full
+	 * each new point replaces the oldest one.
+	 * If the series is longer than the window its first points are removed.
+	 * @param maxPoints the number of points to keep (0 for no limit).
+	 */
+	public void setWindow(final int maxPoints) {
+		this.window = Math.max(maxPoints, 0);
+		if (this.window == 0) {
+			return;
+		}
+		while (this.size > this.window) {
+			this.removeFirst();
+		}
+		if (this.ys.length != this.window) {
+			this.relocate(this.window);
+		}
+	}
+
+	/**
+	 * @return the max number of points kept (0 if unbounded).
+	 */
+	public int getWindow() {
+		return this.window;
+	}
+
+	/**
+	 * @return true if a window is set and the next point added will
+	 * evict the first one.
+	 */
+	public boolean isFull() {
+		return this.window > 0 && this.size == this.window;
+	}
+
+	public void clear() {
+		this.version++;
+		this.size = 0;
+		this.head = 0;
+		this.xs = null;
+		this.hasX = null;
+		this.floatX = null;
+		this.float32Y = null;
+		this.float32X = null;
+		this.labelRefs = null;
+		if (this.ownDictionary) {
+			this.dictionary = null;
+		}
+		clearBitmap(this.nullY);
+		clearBitmap(this.floatY);
+	}
+
+	public boolean isNull(final int index) {
+		return getBit(this.nullY, this.slot(index));
+	}
+
+	public double getY(final int index) {
+		return this.ys[this.slot(index)];
+	}
+
+	public boolean hasX(final int index) {
+		return this.hasX != null && getBit(this.hasX, this.slot(index));
+	}
+
+	public double getX(final int index) {
+		return this.xs[this.slot(index)];
+	}
+
+	/**
+	 * @return true if the y value of the point is not an integral number.
+	 */
+	boolean isFloatY(final int index) {
+		return getBit(this.floatY, this.slot(index));
+	}
+
+	/**
+	 * @return true if the x value of the point is not an integral number.
+	 */
+	boolean isFloatX(final int index) {
+		return getBit(this.floatX, this.slot(index));
+	}
+
+	/**
+	 * @return true if the y value of the point was a float.
+	 */
+	boolean isFloat32Y(final int index) {
+		return this.float32Y != null && getBit(this.float32Y, this.slot(index));
+	}
+
+	/**
+	 * @return true if the x value of the point was a float.
+	 */
+	boolean isFloat32X(final int index) {
+		return this.float32X != null && getBit(this.float32X, this.slot(index));
+	}
+
+	/**
+	 * The y value as written in the javascript (i.e. floats are
+	 * represented by their shortest decimal, as by {@link Float#toString(float)}).
+	 */
+	double getJSY(final int index) {
+		return this.isFloat32Y(index) ? toJS((float) this.getY(index)) : this.getY(index);
+	}
+
+	/**
+	 * The x value as written in the javascript (see {@link #getJSY(int)}).
+	 */
+	double getJSX(final int index) {
+		return this.isFloat32X(index) ? toJS((float) this.getX(index)) : this.getX(index);
+	}
+
+	/**
+	 * @return the label of the point or null if not assigned.
+	 */
+	public String getLabel(final int index) {
+		int ref = this.getLabelRef(index);
+		if (ref < 0) {
+			return null;
+		}
+		return this.dictionary.get(ref);
+	}
+
+	/**
+	 * @return the position of the label of the point inside the
+	 * dictionary or -1 if not assigned.
+	 */
+	int getLabelRef(final int index) {
+		if (this.labelRefs == null) {
+			return -1;
+		}
+		return this.labelRefs[this.slot(index)] - 1;
+	}
+
+	/**
+	 * The dictionary in which the labels are stored
+	 * (null if no label has been assigned yet).
+	 */
+	public LabelDictionary getDictionary() {
+		return this.dictionary;
+	}
+
+	/**
+	 * @return true if some point has been labeled.
+	 */
+	public boolean hasLabels() {
+		return this.labelRefs != null;
+	}
+
+	/**
+	 * @return true if at least one point has its x value.
+	 */
+	public boolean hasXValues() {
+		return this.xs != null;
+	}
+
+	/**
+	 * @return true if the point has the same values (and representation)
+	 * of the point of another series.
+	 */
+	boolean equalPoint(final int index, final SeriesData other, final int otherIndex) {
+		boolean isNull = this.isNull(index);
+		if (isNull != other.isNull(otherIndex)) {
+			return false;
+		}
+		if (!isNull && (this.getY(index) != other.getY(otherIndex) || this.isFloatY(index) != other.isFloatY(otherIndex)
+				|| this.isFloat32Y(index) != other.isFloat32Y(otherIndex))) {
+			return false;
+		}
+		boolean withX = this.hasX(index);
+		if (withX != other.hasX(otherIndex)) {
+			return false;
+		}
+		if (withX && (this.getX(index) != other.getX(otherIndex) || this.isFloatX(index) != other.isFloatX(otherIndex)
+				|| this.isFloat32X(index) != other.isFloat32X(otherIndex))) {
+			return false;
+		}
+		String label = this.getLabel(index);
+		return (label == null) ? other.getLabel(otherIndex) == null : label.equals(other.getLabel(otherIndex));
+	}
+
+	/**
+	 * Creates the boxed representation of the point.
+	 * To be used only when needed since each invocation allocates objects.
+	 */
+	public SeriesDataEntry getEntry(final int index) {
+		this.checkIndex(index);
+		Number y = this.isNull(index) ? null : this.box(this.getY(index), this.isFloatY(index), this.isFloat32Y(index));
+		Number x = this.hasX(index) ? this.box(this.getX(index), this.isFloatX(index), this.isFloat32X(index)) : null;
+		String label = this.getLabel(index);
+		return new SeriesDataEntry(label, x, y);
+	}
+
+	/**
+	 * Appends the js representation of the y value of the point
+	 * (null for missing points).
+	 */
+	public void writeY(final JSWriter writer, final int index) {
+		if (this.isNull(index)) {
+			writer.append("null");
+		} else {
+			writeValue(writer, this.getY(index), this.isFloatY(index), this.isFloat32Y(index));
+		}
+	}
+
+	/**
+	 * Appends the js representation of the x value of the point.
+	 * Must be invoked only if {@link #hasX(int)}.
+	 */
+	public void writeX(final JSWriter writer, final int index) {
+		writeValue(writer, this.getX(index), this.isFloatX(index), this.isFloat32X(index));
+	}
+
+	/**
+	 * Appends the js representation of the point
+	 * (e.g. {name: 'Point 1', x: 5, y: 14}).
+	 */
+	public void writePoint(final JSWriter writer, final int index) {
+		writer.append('{');
+		String label = this.getLabel(index);
+		boolean first = true;
+		if (label != null) {
+			writer.append("name: ").appendQuoted(label);
+			first = false;
+		}
+		if (this.hasX(index)) {
+			if (!first) {
+				writer.append(", ");
+			}
+			writer.append("x: ");
+			this.writeX(writer, index);
+			first = false;
+		}
+		if (!first) {
+			writer.append(", ");
+		}
+		writer.append("y: ");
+		this.writeY(writer, index);
+		writer.append('}');
+	}
+
+	/**
+	 * Appends the most compact js representation of the point accepted
+	 * by highcharts: the y value (e.g. 14) for points having only it,
+	 * the [x, y] pair for points with x and the object
+	 * (see {@link #writePoint(JSWriter, int)}) for labeled points.
+	 */
+	public void writeCompactPoint(final JSWriter writer, final int index) {
+		if (this.getLabelRef(index) >= 0) {
+			this.writePoint(writer, index);
+		} else if (this.hasX(index)) {
+			writer.append('[');
+			this.writeX(writer, index);
+			writer.append(", ");
+			this.writeY(writer, index);
+			writer.append(']');
+		} else {
+			this.writeY(writer, index);
+		}
+	}
+
+	/**
+	 * Adds the most compact representation of the point to the current
+	 * array (see {@link #writeCompactPoint(JSWriter, int)}).
+	 */
+	public void buildCompactPoint(final JSObjectBuilder builder, final int index) {
+		if (this.getLabelRef(index) >= 0) {
+			this.buildPoint(builder, index);
+			return;
+		}
+		boolean withX = this.hasX(index);
+		if (withX) {
+			builder.beginArray(null);
+			builder.addNumber(null, this.getJSX(index));
+		}
+		if (this.isNull(index)) {
+			builder.addNull(null);
+		} else {
+			builder.addNumber(null, this.getJSY(index));
+		}
+		if (withX) {
+			builder.endArray();
+		}
+	}
+
+	/**
+	 * Appends the point without its x, that is computed by highcharts from
+	 * the pointStart and pointInterval of the series (e.g. 14 or
+	 * {name: 'Point 1', y: 14}).
+	 */
+	public void writeImplicitPoint(final JSWriter writer, final int index) {
+		String label = this.getLabel(index);
+		if (label == null) {
+			this.writeY(writer, index);
+			return;
+		}
+		writer.append("{name: ").appendQuoted(label).append(", y: ");
+		this.writeY(writer, index);
+		writer.append('}');
+	}
+
+	/**
+	 * Adds the point without its x to the current array
+	 * (see {@link #writeImplicitPoint(JSWriter, int)}).
+	 */
+	public void buildImplicitPoint(final JSObjectBuilder builder, final int index) {
+		String label = this.getLabel(index);
+		if (label != null) {
+			builder.beginObject(null);
+			builder.addString("name", label);
+		}
+		if (this.isNull(index)) {
+			builder.addNull(label != null ? "y" : null);
+		} else {
+			builder.addNumber(label != null ? "y" : null, this.getJSY(index));
+		}
+		if (label != null) {
+			builder.endObject();
+		}
+	}
+
+	/**
+	 * Adds the js object of the point to the current array.
+	 */
+	public void buildPoint(final JSObjectBuilder builder, final int index) {
+		builder.beginObject(null);
+		String label = this.getLabel(index);
+		if (label != null) {
+			builder.addString("name", label);
+		}
+		if (this.hasX(index)) {
+			builder.addNumber("x", this.getJSX(index));
+		}
+		if (this.isNull(index)) {
+			builder.addNull("y");
+		} else {
+			builder.addNumber("y", this.getJSY(index));
+		}
+		builder.endObject();
+	}
+
+	/*
+	 * Raw access to the columns, used by the RPC serializer
+	 * (see SeriesData_CustomFieldSerializer).
+	 * The arrays can be longer than the number of points and
+	 * start at the first point only after normalize().
+	 */
+	void normalize() {
+		if (this.head != 0) {
+			this.relocate(this.ys.length);
+		}
+	}
+
+	double[] getYColumn() {
+		return this.ys;
+	}
+
+	double[] getXColumn() {
+		return this.xs;
+	}
+
+	int[] getNullBitmap() {
+		return this.nullY;
+	}
+
+	int[] getFloatYBitmap() {
+		return this.floatY;
+	}
+
+	int[] getHasXBitmap() {
+		return this.hasX;
+	}
+
+	int[] getFloatXBitmap() {
+		return this.floatX;
+	}
+
+	int[] getFloat32YBitmap() {
+		return this.float32Y;
+	}
+
+	int[] getFloat32XBitmap() {
+		return this.float32X;
+	}
+
+	int[] getLabelRefs() {
+		return this.labelRefs;
+	}
+
+	/**
+	 * Rebuilds the points from their raw columns.
+	 * @param xs null if no point has x (and so the x bitmaps).
+	 * @param float32Y null if no y value was a float (the same for float32X).
+	 * @param labelRefs null if no point has label (and so the dictionary).
+	 * @param window the max number of points kept (0 if unbounded),
+	 * if set the columns must have exactly this length.
+	 */
+	static SeriesData restore(final int size, final double[] ys, final int[] nullY, final int[] floatY,
+			final double[] xs, final int[] hasX, final int[] floatX,
+			final int[] float32Y, final int[] float32X,
+			final int[] labelRefs, final LabelDictionary dictionary, final int window) {
+		SeriesData retval = new SeriesData(0);
+		retval.size = size;
+		retval.window = window;
+		retval.ys = ys;
+		retval.nullY = nullY;
+		retval.floatY = floatY;
+		retval.xs = xs;
+		retval.hasX = hasX;
+		retval.floatX = floatX;
+		retval.float32Y = float32Y;
+		retval.float32X = float32X;
+		retval.labelRefs = labelRefs;
+		retval.dictionary = dictionary;
+		return retval;
+	}
+
+	/**
+	 * The number of words of the bitmaps for the given number of points.
+	 */
+	static int bitmapLength(final int capacity) {
+		return (capacity + BITS - 1) >>> BITS_SHIFT;
+	}
+
+	/*
+	 * Internal helpers
+	 */
+	private static boolean isIntegral(final Number value) {
+		return value instanceof Integer || value instanceof Long
+		|| value instanceof Short || value instanceof Byte;
+	}
+
+	private Number box(final double value, final boolean floating, final boolean float32) {
+		if (float32) {
+			return Float.valueOf((float) value);
+		}
+		if (floating) {
+			return Double.valueOf(value);
+		}
+		return Long.valueOf((long) value);
+	}
+
+	private static void writeValue(final JSWriter writer, final double value, final boolean floating, final boolean float32) {
+		if (float32) {
+			writer.append(Float.toString((float) value));
+		} else {
+			writer.appendNumber(value, floating);
+		}
+	}
+
+	private static double toJS(final float value) {
+		return Double.parseDouble(Float.toString(value));
+	}
+
+	private void setY(final int index, final double y) {
+		if (Double.isNaN(y)) {
+			this.ys[index] = 0;
+			setBit(this.nullY, index, true);
+		} else {
+			this.ys[index] = y;
+			setBit(this.nullY, index, false);
+		}
+		setBit(this.floatY, index, true);
+		if (this.float32Y != null) {
+			setBit(this.float32Y, index, false);
+		}
+		if (this.labelRefs != null) {
+			this.labelRefs[index] = 0;
+		}
+	}
+
+	private void setX(final int index, final double x) {
+		if (this.xs == null) {
+			this.xs = new double[this.ys.length];
+			this.hasX = new int[this.nullY.length];
+			this.floatX = new int[this.nullY.length];
+		}
+		this.xs[index] = x;
+		setBit(this.hasX, index, true);
+		setBit(this.floatX, index, true);
+		if (this.float32X != null) {
+			setBit(this.float32X, index, false);
+		}
+	}
+
+	private void setFloat32Y(final int index, final boolean value) {
+		if (value && this.float32Y == null) {
+			this.float32Y = new int[this.nullY.length];
+		}
+		if (this.float32Y != null) {
+			setBit(this.float32Y, index, value);
+		}
+	}
+
+	private void setFloat32X(final int index, final boolean value) {
+		if (value && this.float32X == null) {
+			this.float32X = new int[this.nullY.length];
+		}
+		if (this.float32X != null) {
+			setBit(this.float32X, index, value);
+		}
+	}
+
+	private void setLabel(final int index, final String label) {
+		if (label == null || label.length() == 0) {
+			if (this.labelRefs != null) {
+				this.labelRefs[index] = 0;
+			}
+			return;
+		}
+		if (this.labelRefs == null) {
+			this.labelRefs = new int[this.ys.length];
+		}
+		if (this.dictionary == null) {
+			this.dictionary = new LabelDictionary();
+		}
+		int ref = this.dictionary.intern(label) + 1;
+		this.labelRefs[index] = ref;
+	}
+
+	/*
+	 * Fills the slot with the given boxed values.
+	 */
+	private void setSlot(final int slot, final Number x, final Number y, final String label) {
+		if (x != null) {
+			this.setX(slot, x.doubleValue());
+			setBit(this.floatX, slot, !isIntegral(x));
+			this.setFloat32X(slot, x instanceof Float);
+		} else if (this.hasX != null) {
+			setBit(this.hasX, slot, false);
+		}
+		if (y != null) {
+			this.setY(slot, y.doubleValue());
+			setBit(this.floatY, slot, !isIntegral(y));
+			this.setFloat32Y(slot, y instanceof Float);
+		} else {
+			this.ys[slot] = 0;
+			setBit(this.nullY, slot, true);
+			this.setFloat32Y(slot, false);
+		}
+		this.setLabel(slot, label);
+	}
+
+	/*
+	 * The slot inside the columns of the point at the given position.
+	 */
+	private int slot(final int index) {
+		int slot = this.head + index;
+		return (slot >= this.ys.length) ? slot - this.ys.length : slot;
+	}
+
+	private int next(final int slot) {
+		return (slot + 1 == this.ys.length) ? 0 : slot + 1;
+	}
+
+	/*
+	 * Makes room for a new point at the end of the series and returns
+	 * its slot, cleared from the values of the point that used it before.
+	 * If the window is full the first point is evicted.
+	 */
+	private int append() {
+		int slot;
+		if (this.isFull()) {
+			slot = this.head;
+			this.head = this.next(this.head);
+		} else {
+			this.ensureCapacity(this.size + 1);
+			slot = this.slot(this.size++);
+		}
+		if (this.hasX != null) {
+			setBit(this.hasX, slot, false);
+			setBit(this.floatX, slot, false);
+		}
+		if (this.float32X != null) {
+			setBit(this.float32X, slot, false);
+		}
+		if (this.labelRefs != null) {
+			this.labelRefs[slot] = 0;
+		}
+		return slot;
+	}
+
+	/*
+	 * Grows the columns once before a bulk append.
+	 */
+	private void reserve(final int count) {
+		if (this.window == 0) {
+			this.ensureCapacity(this.size + count);
+		}
+	}
+
+	private void checkIndex(final int index) {
+		if (index < 0 || index >= this.size) {
+			throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + this.size);
+		}
+	}
+
+	private void ensureCapacity(final int capacity) {
+		if (capacity <= this.ys.length) {
+			return;
+		}
+		this.relocate(Math.max(capacity, this.ys.length * 2));
+	}
+
+	/*
+	 * Moves the points inside new columns of the given capacity
+	 * (at least the size), so that the first point is at slot 0.
+	 */
+	private void relocate(final int capacity) {
+		int length = this.ys.length;
+		this.ys = relocate(this.ys, this.head, this.size, capacity);
+		this.xs = relocate(this.xs, this.head, this.size, capacity);
+		this.labelRefs = relocate(this.labelRefs, this.head, this.size, capacity);
+		int bitmapCapacity = bitmapLength(capacity);
+		this.nullY = relocate(this.nullY, this.head, this.size, length, bitmapCapacity);
+		this.floatY = relocate(this.floatY, this.head, this.size, length, bitmapCapacity);
+		this.hasX = relocate(this.hasX, this.head, this.size, length, bitmapCapacity);
+		this.floatX = relocate(this.floatX, this.head, this.size, length, bitmapCapacity);
+		this.float32Y = relocate(this.float32Y, this.head, this.size, length, bitmapCapacity);
+		this.float32X = relocate(this.float32X, this.head, this.size, length, bitmapCapacity);
+		this.head = 0;
+	}
+
+	private static double[] relocate(final double[] values, final int head, final int size, final int capacity) {
+		if (values == null) {
+			return null;
+		}
+		double[] retval = new double[capacity];
+		int first = Math.min(size, values.length - head);
+		System.arraycopy(values, head, retval, 0, first);
+		System.arraycopy(values, 0, retval, first, size - first);
+		return retval;
+	}
+
+	private static int[] relocate(final int[] values, final int head, final int size, final int capacity) {
+		if (values == null) {
+			return null;
+		}
+		int[] retval = new int[capacity];
+		int first = Math.min(size, values.length - head);
+		System.arraycopy(values, head, retval, 0, first);
+		System.arraycopy(values, 0, retval, first, size - first);
+		return retval;
+	}
+
+	/*
+	 * The bitmap version: when the points start at slot 0 the words are
+	 * copied as they are, otherwise each bit is moved to its new slot.
+	 */
+	private static int[] relocate(final int[] bitmap, final int head, final int size,
+			final int length, final int words) {
+		if (bitmap == null) {
+			return null;
+		}
+		int[] retval = new int[words];
+		if (head == 0) {
+			int used = bitmapLength(size);
+			System.arraycopy(bitmap, 0, retval, 0, used);
+			if (used > 0 && (size & (BITS - 1)) != 0) {
+				// drops the bits beyond the last point
+				retval[used - 1] &= (1 << (size & (BITS - 1))) - 1;
+			}
+			return retval;
+		}
+		for (int i = 0, slot = head; i < size; i++, slot++) {
+			if (slot == length) {
+				slot = 0;
+			}
+			if (getBit(bitmap, slot)) {
+				setBit(retval, i, true);
+			}
+		}
+		return retval;
+	}
+
+	private static boolean getBit(final int[] bitmap, final int index) {
+		return (bitmap[index >>> BITS_SHIFT] & (1 << (index & (BITS - 1)))) != 0;
+	}
+
+	private static void setBit(final int[] bitmap, final int index, final boolean value) {
+		if (value) {
+			bitmap[index >>> BITS_SHIFT] |= 1 << (index & (BITS - 1));
+		} else {
+			bitmap[index >>> BITS_SHIFT] &= ~(1 << (index & (BITS - 1)));
+		}
+	}
+
+	private static void clearBitmap(final int[] bitmap) {
+		for (int i = 0; i < bitmap.length; i++) {
+			bitmap[i] = 0;
+		}
+	}
+}
@@ -0,0 +1,170 @@
+/****************************************************************************
+ *  This software is part of the HighchartsJS adapters for Ext GWT.
+ ****************************************************************************
+ * This library is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this library.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ ****************************************************************************
+ * Filename: SeriesData_CustomFieldSerializer.java
+ ****************************************************************************
+ * @author <a href="mailto:daniele.strollo@gmail.com">Daniele Strollo</a>
+ ***************************************************************************/
+
+package org.gxt.adapters.highcharts.codegen.types;
+
+import com.google.gwt.user.client.rpc.SerializationException;
+import com.google.gwt.user.client.rpc.SerializationStreamReader;
+import com.google.gwt.user.client.rpc.SerializationStreamWriter;
+
+/**
+ * GWT-RPC serialization of {@link SeriesData}.
+ * The columns are written as sequences of primitive values
+ * (the bitmaps as 32 bits words), so that no object is created
+ * for the points neither on the server nor on the client.
+ * <pre>
+ * size
+ * flags (1: x values, 2: labels, 4: window, 8: float values)
+ * [window]
+ * y values, null bitmap, integral y bitmap, [float y bitmap]
+ * [x values, has x bitmap, integral x bitmap, [float x bitmap]]
+ * [number of labels, labels, label of each point]
+ * </pre>
+ * @author Daniele Strollo
+ */
+public final class SeriesData_CustomFieldSerializer {
+	private static final int FLAG_X = 1;
+	private static final int FLAG_LABELS = 2;
+	private static final int FLAG_WINDOW = 4;
+	private static final int FLAG_FLOAT32 = 8;
+
+	private SeriesData_CustomFieldSerializer() {
+	}
+
+	public static void serialize(final SerializationStreamWriter writer, final SeriesData data)
+	throws SerializationException {
+		// the columns are written starting from the first point
+		data.normalize();
+		int size = data.size();
+		int window = data.getWindow();
+		boolean hasX = data.getXColumn() != null;
+		boolean hasLabels = data.getLabelRefs() != null;
+		boolean hasFloats = data.getFloat32YBitmap() != null || data.getFloat32XBitmap() != null;
+		writer.writeInt(size);
+		writer.writeInt((hasX ? FLAG_X : 0) | (hasLabels ? FLAG_LABELS : 0) | (window > 0 ? FLAG_WINDOW : 0)
+				| (hasFloats ? FLAG_FLOAT32 : 0));
+		if (window > 0) {
+			writer.writeInt(window);
+		}
+
+		writeDoubles(writer, data.getYColumn(), size);
+		writeInts(writer, data.getNullBitmap(), SeriesData.bitmapLength(size));
+		writeInts(writer, data.getFloatYBitmap(), SeriesData.bitmapLength(size));
+		if (hasFloats) {
+			writeInts(writer, data.getFloat32YBitmap(), SeriesData.bitmapLength(size));
+		}
+		if (hasX) {
+			writeDoubles(writer, data.getXColumn(), size);
+			writeInts(writer, data.getHasXBitmap(), SeriesData.bitmapLength(size));
+			writeInts(writer, data.getFloatXBitmap(), SeriesData.bitmapLength(size));
+			if (hasFloats) {
+				writeInts(writer, data.getFloat32XBitmap(), SeriesData.bitmapLength(size));
+			}
+		}
+		if (hasLabels) {
+			LabelDictionary dictionary = data.getDictionary();
+			writer.writeInt(dictionary.size());
+			for (int i = 0; i < dictionary.size(); i++) {
+				writer.writeString(dictionary.get(i));
+			}
+			writeInts(writer, data.getLabelRefs(), size);
+		}
+	}
+
+	public static SeriesData instantiate(final SerializationStreamReader reader)
+	throws SerializationException {
+		int size = reader.readInt();
+		int flags = reader.readInt();
+		int window = ((flags & FLAG_WINDOW) != 0) ? reader.readInt() : 0;
+		// at least one point of capacity, as for the public constructors,
+		// and exactly the window if set
+		int capacity = (window > 0) ? window : Math.max(size, 1);
+		int words = SeriesData.bitmapLength(capacity);
+
+		double[] ys = readDoubles(reader, size, capacity);
+		int[] nullY = readInts(reader, SeriesData.bitmapLength(size), words);
+		int[] floatY = readInts(reader, SeriesData.bitmapLength(size), words);
+		boolean hasFloats = (flags & FLAG_FLOAT32) != 0;
+		int[] float32Y = hasFloats ? readInts(reader, SeriesData.bitmapLength(size), words) : null;
+		double[] xs = null;
+		int[] hasX = null;
+		int[] floatX = null;
+		int[] float32X = null;
+		if ((flags & FLAG_X) != 0) {
+			xs = readDoubles(reader, size, capacity);
+			hasX = readInts(reader, SeriesData.bitmapLength(size), words);
+			floatX = readInts(reader, SeriesData.bitmapLength(size), words);
+			float32X = hasFloats ? readInts(reader, SeriesData.bitmapLength(size), words) : null;
+		}
+		int[] labelRefs = null;
+		LabelDictionary dictionary = null;
+		if ((flags & FLAG_LABELS) != 0) {
+			dictionary = new LabelDictionary();
+			int labels = reader.readInt();
+			for (int i = 0; i < labels; i++) {
+				dictionary.intern(reader.readString());
+			}
+			labelRefs = readInts(reader, size, capacity);
+		}
+		return SeriesData.restore(size, ys, nullY, floatY, xs, hasX, floatX, float32Y, float32X,
+				labelRefs, dictionary, window);
+	}
+
+	public static void deserialize(final SerializationStreamReader reader, final SeriesData data) {
+		// everything has been read by instantiate
+	}
+
+	private static void writeDoubles(final SerializationStreamWriter writer, final double[] values, final int length)
+	throws SerializationException {
+		for (int i = 0; i < length; i++) {
+			writer.writeDouble(values[i]);
+		}
+	}
+
+	/*
+	 * A missing bitmap (e.g. no float x) is written as empty.
+	 */
+	private static void writeInts(final SerializationStreamWriter writer, final int[] values, final int length)
+	throws SerializationException {
+		for (int i = 0; i < length; i++) {
+			writer.writeInt((values != null) ? values[i] : 0);
+		}
+	}
+
+	private static double[] readDoubles(final SerializationStreamReader reader, final int length, final int capacity)
+	throws SerializationException {
+		double[] retval = new double[capacity];
+		for (int i = 0; i < length; i++) {
+			retval[i] = reader.readDouble();
+		}
+		return retval;
+	}
+
+	private static int[] readInts(final SerializationStreamReader reader, final int length, final int capacity)
+	throws SerializationException {
+		int[] retval = new int[capacity];
+		for (int i = 0; i < length; i++) {
+			retval[i] = reader.readInt();
+		}
+		return retval;
+	}
+}
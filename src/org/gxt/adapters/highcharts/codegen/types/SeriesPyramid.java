@@ -0,0 +1,429 @@
+/****************************************************************************
+ *  This software is part of the HighchartsJS adapters for Ext GWT.
+ ****************************************************************************
+ * This library is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this library.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ ****************************************************************************
+ * Filename: SeriesPyramid.java
+ ****************************************************************************
+ * @author <a href="mailto:daniele.strollo@gmail.com">Daniele Strollo</a>
+ ***************************************************************************/
+
+package org.gxt.adapters.highcharts.codegen.types;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Pre-aggregated levels of a series for answering zoom requests
+ * (e.g. year-long series sampled every second) at the resolution of
+ * the plot in time proportional to the points produced.
+ * <p>
+ * The level L groups the points in buckets of 2<sup>L</sup> consecutive
+ * points and keeps for each bucket the position of its lowest and
+ * highest point, the sum of its values (and of its x) and the number
+ * of not missing points. The levels are built incrementally while the
+ * points are appended, taking O(log n) per point and about 28 bytes
+ * per point overall.
+ * </p>
+ * <p>
+ * <b>Notice:</b> the points must be sorted by x (the points without x
+ * are placed on their position) and can be only appended: after other
+ * changes the pyramid must be rebuilt (see {@link #rebuild()}).
+ * The points evicted by the window of the series (see {@link SeriesData#setWindow(int)})
+ * while appending through {@link #add(double, double)} are dropped
+ * together with the buckets containing only them. The pyramid is
+ * rebuilt at next query if the series changed in other ways.
+ * </p>
+ * <pre>
+ * SeriesPyramid pyramid = new SeriesPyramid(data);
+ * pyramid.add(timestamp, value);
+ * // the visible range for a plot 800 pixels wide
+ * SeriesData visible = pyramid.query(from, to, 800, DownsamplingType.MIN_MAX);
+ * </pre>
+ * @author Daniele Strollo
+ */
+public final class SeriesPyramid {
+	private SeriesData data = null;
+	// the levels from 1 (level 0 are the points themselves)
+	private List<Level> levels = new ArrayList<Level>();
+	// the points are indexed by their position since the first one
+	// indexed, the ones before the evicted count are no more in the series
+	private int indexed = 0;
+	private int evicted = 0;
+	// the version of the series once indexed
+	private int version = 0;
+
+	/*
+	 * The buckets of a level.
+	 */
+	private static final class Level {
+		private static final int DEFAULT_CAPACITY = 16;
+		// the bucket in the first slot (the previous ones have been evicted)
+		private int offset = 0;
+		private int size = 0;
+		private int[] minIndex = new int[DEFAULT_CAPACITY];
+		private int[] maxIndex = new int[DEFAULT_CAPACITY];
+		private int[] count = new int[DEFAULT_CAPACITY];
+		private double[] sum = new double[DEFAULT_CAPACITY];
+		private double[] sumX = new double[DEFAULT_CAPACITY];
+
+		/*
+		 * Opens the next bucket, the slots of the buckets before
+		 * firstBucket are reused once they are at least half of them.
+		 */
+		private void open(final int firstBucket) {
+			if (this.size == this.sum.length) {
+				int dead = Math.min(firstBucket - this.offset, this.size);
+				int capacity = (dead > this.size / 2) ? this.size : this.size * 2;
+				this.minIndex = relocate(this.minIndex, dead, capacity);
+				this.maxIndex = relocate(this.maxIndex, dead, capacity);
+				this.count = relocate(this.count, dead, capacity);
+				this.sum = relocate(this.sum, dead, capacity);
+				this.sumX = relocate(this.sumX, dead, capacity);
+				this.offset += dead;
+				this.size -= dead;
+			}
+			this.minIndex[this.size] = -1;
+			this.maxIndex[this.size] = -1;
+			this.count[this.size] = 0;
+			this.sum[this.size] = 0;
+			this.sumX[this.size] = 0;
+			this.size++;
+		}
+	}
+
+	/*
+	 * The aggregation of a range of points.
+	 */
+	private static final class Aggregate {
+		private int minIndex = -1;
+		private int maxIndex = -1;
+		private int count = 0;
+		private int points = 0;
+		private double sum = 0;
+		private double sumX = 0;
+	}
+
+	/**
+	 * Builds the pyramid of the points already in the series,
+	 * the ones appended later are indexed at next {@link #add(double, double)}
+	 * or {@link #query(double, double, int, DownsamplingType)}.
+	 * @param data the points, sorted by x.
+	 */
+	public SeriesPyramid(final SeriesData data) {
+		this.data = (data != null) ? data : new SeriesData();
+		this.rebuild();
+	}
+
+	/**
+	 * The points on which the pyramid is built.
+	 */
+	public SeriesData getData() {
+		return this.data;
+	}
+
+	/**
+	 * The number of levels built (a level covers all the points).
+	 */
+	public int getLevelsCount() {
+		return this.levels.size();
+	}
+
+	/**
+	 * Appends a point to the series updating the levels in O(log n)
+	 * (also when the window of the series evicts the first point).
+	 * @param x must not be lower than the one of the last point.
+	 * @param y NaN for a missing point.
+	 */
+	public void add(final double x, final double y) {
+		boolean indexed = this.data.getVersion() == this.version;
+		boolean full = this.data.isFull();
+		this.data.add(x, y);
+		if (!indexed) {
+			// the series changed outside the pyramid: indexed at next query
+			return;
+		}
+		if (full) {
+			this.evicted++;
+		}
+		this.index(this.indexed++);
+		this.version = this.data.getVersion();
+	}
+
+	/**
+	 * Indexes the points appended to the series since the last
+	 * invocation. If the series is shorter than before, or its window
+	 * evicted points, it is rebuilt.
+	 */
+	public void refresh() {
+		if (this.data.getVersion() == this.version) {
+			return;
+		}
+		int live = this.indexed - this.evicted;
+		if (this.data.size() < live || (this.data.isFull() && live > 0)) {
+			this.rebuild();
+			return;
+		}
+		while (this.indexed - this.evicted < this.data.size()) {
+			this.index(this.indexed++);
+		}
+		this.version = this.data.getVersion();
+	}
+
+	/**
+	 * Builds again all the levels (e.g. after changing existing points).
+	 */
+	public void rebuild() {
+		this.levels.clear();
+		this.indexed = 0;
+		this.evicted = 0;
+		while (this.indexed < this.data.size()) {
+			this.index(this.indexed++);
+		}
+		this.version = this.data.getVersion();
+	}
+
+	/**
+	 * The points inside a range of x reduced to the given number.
+	 * The points are aggregated by the level whose buckets are the
+	 * smallest keeping the number within the limit.
+	 * @param fromX the lowest x (included).
+	 * @param toX the highest x (included).
+	 * @param maxPoints the maximum number of points (e.g. the width of the plot),
+	 * at least two for {@link DownsamplingType#MIN_MAX}.
+	 * @param type how the buckets are represented: the lowest and highest
+	 * points ({@link DownsamplingType#MIN_MAX}, two points per bucket) or
+	 * their average ({@link DownsamplingType#AVERAGE}).
+	 * @return the points of the range, not reduced if within the limit.
+	 */
+	public SeriesData query(final double fromX, final double toX, final int maxPoints, final DownsamplingType type) {
+		if (type != DownsamplingType.MIN_MAX && type != DownsamplingType.AVERAGE) {
+			throw new IllegalArgumentException("The pyramid supports only MIN_MAX and AVERAGE, not " + type);
+		}
+		this.refresh();
+		int from = this.indexOf(fromX);
+		int to = this.indexOf(toX);
+		// toX is included
+		while (to < this.data.size() && xOf(this.data, to) <= toX) {
+			to++;
+		}
+		int length = to - from;
+		// from now on the positions are the indexed ones
+		from += this.evicted;
+		to += this.evicted;
+		if (length <= 0) {
+			return new SeriesData(1);
+		}
+		if (length <= Math.max(maxPoints, 1)) {
+			SeriesData retval = new SeriesData(length);
+			for (int i = from; i < to; i++) {
+				retval.addPointOf(this.data, i - this.evicted);
+			}
+			return retval;
+		}
+
+		int buckets = (type == DownsamplingType.MIN_MAX) ? Math.max(maxPoints / 2, 1) : Math.max(maxPoints, 1);
+		int level = 1;
+		while (level < this.levels.size() && ((to - 1) >>> level) - (from >>> level) + 1 > buckets) {
+			level++;
+		}
+		int last = (to - 1) >>> level;
+		SeriesData retval = new SeriesData((last - (from >>> level) + 1) * ((type == DownsamplingType.MIN_MAX) ? 2 : 1));
+		Aggregate aggregate = new Aggregate();
+		// the points without x have been indexed by their position
+		double shiftX = this.data.hasXValues() ? 0 : this.evicted;
+		for (int bucket = from >>> level; bucket <= last; bucket++) {
+			int start = Math.max(bucket << level, from);
+			int end = Math.min((bucket + 1) << level, to);
+			this.aggregate(aggregate, start, end);
+			if (type == DownsamplingType.AVERAGE) {
+				retval.add(aggregate.sumX / aggregate.points - shiftX,
+						(aggregate.count > 0) ? aggregate.sum / aggregate.count : Double.NaN);
+			} else if (aggregate.count == 0) {
+				// the whole bucket is missing: keeps the gap
+				retval.addPointOf(this.data, start - this.evicted);
+			} else if (aggregate.minIndex == aggregate.maxIndex) {
+				retval.addPointOf(this.data, aggregate.minIndex - this.evicted);
+			} else {
+				retval.addPointOf(this.data, Math.min(aggregate.minIndex, aggregate.maxIndex) - this.evicted);
+				retval.addPointOf(this.data, Math.max(aggregate.minIndex, aggregate.maxIndex) - this.evicted);
+			}
+		}
+		return retval;
+	}
+
+	/**
+	 * The position of the first point whose x is not lower than the given one
+	 * (the number of points if none).
+	 */
+	public int indexOf(final double x) {
+		int low = 0;
+		int high = this.data.size();
+		while (low < high) {
+			int mid = (low + high) >>> 1;
+			if (xOf(this.data, mid) < x) {
+				low = mid + 1;
+			} else {
+				high = mid;
+			}
+		}
+		return low;
+	}
+
+	/**
+	 * The x of a point, its position if it has not x.
+	 */
+	public double getX(final int index) {
+		return xOf(this.data, index);
+	}
+
+	/*
+	 * Adds the point to the last bucket of each level, creating the
+	 * new top level once the previous one has two buckets.
+	 * The buckets containing evicted points are never used by the
+	 * queries, so their values do not matter.
+	 */
+	private void index(final int index) {
+		for (int level = 1; ; level++) {
+			int bucket = index >>> level;
+			Level current;
+			if (level > this.levels.size()) {
+				current = new Level();
+				current.open(0);
+				Level previous = (level > 1) ? this.levels.get(level - 2) : null;
+				if (previous != null && previous.offset == 0) {
+					// the new top level starts from the whole previous one
+					this.merge(current, 0, previous, 0);
+				}
+				this.levels.add(current);
+			} else {
+				current = this.levels.get(level - 1);
+				if (bucket == current.offset + current.size) {
+					current.open(this.evicted >>> level);
+				}
+			}
+			this.addPoint(current, bucket, index);
+			if (bucket == 0) {
+				return;
+			}
+		}
+	}
+
+	private void addPoint(final Level level, final int bucket, final int index) {
+		int slot = bucket - level.offset;
+		level.sumX[slot] += this.xAt(index);
+		if (this.data.isNull(index - this.evicted)) {
+			return;
+		}
+		level.count[slot]++;
+		level.sum[slot] += this.data.getY(index - this.evicted);
+		level.minIndex[slot] = this.lower(level.minIndex[slot], index);
+		level.maxIndex[slot] = this.higher(level.maxIndex[slot], index);
+	}
+
+	private void merge(final Level target, final int bucket, final Level source, final int sourceBucket) {
+		int slot = bucket - target.offset;
+		int sourceSlot = sourceBucket - source.offset;
+		target.sumX[slot] += source.sumX[sourceSlot];
+		target.count[slot] += source.count[sourceSlot];
+		target.sum[slot] += source.sum[sourceSlot];
+		target.minIndex[slot] = this.lower(target.minIndex[slot], source.minIndex[sourceSlot]);
+		target.maxIndex[slot] = this.higher(target.maxIndex[slot], source.maxIndex[sourceSlot]);
+	}
+
+	/*
+	 * Aggregates the points in [start, end) through the biggest
+	 * buckets fitting in it (O(log n) buckets).
+	 */
+	private void aggregate(final Aggregate aggregate, final int start, final int end) {
+		aggregate.minIndex = -1;
+		aggregate.maxIndex = -1;
+		aggregate.count = 0;
+		aggregate.points = end - start;
+		aggregate.sum = 0;
+		aggregate.sumX = 0;
+		int index = start;
+		while (index < end) {
+			int level = 0;
+			while (level < this.levels.size() && (index & ((2 << level) - 1)) == 0 && index + (2 << level) <= end) {
+				level++;
+			}
+			if (level == 0) {
+				aggregate.sumX += this.xAt(index);
+				if (!this.data.isNull(index - this.evicted)) {
+					aggregate.count++;
+					aggregate.sum += this.data.getY(index - this.evicted);
+					aggregate.minIndex = this.lower(aggregate.minIndex, index);
+					aggregate.maxIndex = this.higher(aggregate.maxIndex, index);
+				}
+				index++;
+			} else {
+				Level current = this.levels.get(level - 1);
+				int slot = (index >>> level) - current.offset;
+				aggregate.sumX += current.sumX[slot];
+				aggregate.count += current.count[slot];
+				aggregate.sum += current.sum[slot];
+				aggregate.minIndex = this.lower(aggregate.minIndex, current.minIndex[slot]);
+				aggregate.maxIndex = this.higher(aggregate.maxIndex, current.maxIndex[slot]);
+				index += 1 << level;
+			}
+		}
+	}
+
+	/*
+	 * The point with the lowest (or highest) value, -1 means none.
+	 * The evicted points are ignored.
+	 */
+	private int lower(final int a, final int b) {
+		if (a < this.evicted || b < this.evicted) {
+			return (a < this.evicted) ? b : a;
+		}
+		return (this.data.getY(b - this.evicted) < this.data.getY(a - this.evicted)) ? b : a;
+	}
+
+	private int higher(final int a, final int b) {
+		if (a < this.evicted || b < this.evicted) {
+			return (a < this.evicted) ? b : a;
+		}
+		return (this.data.getY(b - this.evicted) > this.data.getY(a - this.evicted)) ? b : a;
+	}
+
+	/*
+	 * The x of an indexed point, its indexed position if it has not x.
+	 */
+	private double xAt(final int index) {
+		int position = index - this.evicted;
+		return this.data.hasX(position) ? this.data.getX(position) : index;
+	}
+
+	private static double xOf(final SeriesData data, final int index) {
+		return data.hasX(index) ? data.getX(index) : index;
+	}
+
+	/*
+	 * Drops the first values and sizes the array to the given capacity.
+	 */
+	private static int[] relocate(final int[] values, final int dropped, final int capacity) {
+		int[] retval = new int[capacity];
+		System.arraycopy(values, dropped, retval, 0, values.length - dropped);
+		return retval;
+	}
+
+	private static double[] relocate(final double[] values, final int dropped, final int capacity) {
+		double[] retval = new double[capacity];
+		System.arraycopy(values, dropped, retval, 0, values.length - dropped);
+		return retval;
+	}
+}
@@ -24,10 +24,10 @@ package org.gxt.adapters.highcharts.codegen.types;
 
 import java.io.Serializable;
 import java.util.List;
-import java.util.Vector;
 
 import org.gxt.adapters.highcharts.codegen.sections.options.types.ChartType;
-import org.gxt.adapters.highcharts.codegen.utils.StringUtils;
+import org.gxt.adapters.highcharts.codegen.utils.JSObjectBuilder;
+import org.gxt.adapters.highcharts.codegen.utils.JSWriter;
 
 
 /**
@@ -48,11 +48,16 @@ public class SeriesType implements Serializable {
 	 * to show in the tooltip for the corresponding point (e.g. xLabel="Point1").
 	 * @author Daniele Strollo
 	 */
-	public static class SeriesDataEntry {
+	public static class SeriesDataEntry implements Serializable {
+		private static final long serialVersionUID = 1L;
 		private Number x = null;
 		private Number y = null;
 		private String xLabel = null;
 
+		private SeriesDataEntry() {
+			// for serialization only
+		}
+
 		public SeriesDataEntry(final Number y) {
 			this.y = y;
 		}
@@ -69,29 +74,102 @@ public class SeriesType implements Serializable {
 			}
 		}
 
+		public SeriesDataEntry(final String xLabel, final Number x, final Number y) {
+			this(xLabel, y);
+			this.x = x;
+		}
+
+		public final Number getX() {
+			return this.x;
+		}
+
+		public final Number getY() {
+			return this.y;
+		}
+
+		public final String getLabel() {
+			return this.xLabel;
+		}
+
 		public final String getJS() {
-			List<String> entries = new Vector<String>();
+			JSWriter writer = new JSWriter(32);
+			this.writeJS(writer);
+			return writer.toString();
+		}
+
+		/**
+		 * Appends the most compact representation of the point:
+		 * 14 if only y is set, [5, 14] if also x is set and the
+		 * js object for labeled points.
+		 */
+		public final void writeCompactJS(final JSWriter writer) {
+			if (xLabel != null && xLabel.length() > 0) {
+				this.writeJS(writer);
+			} else if (x != null) {
+				writer.append('[').append(x).append(", ").append((y != null) ? y : "null").append(']');
+			} else {
+				writer.append((y != null) ? y : "null");
+			}
+		}
+
+		/**
+		 * Appends the js object of the point (e.g. {x: 5, y: 14}).
+		 */
+		public final void writeJS(final JSWriter writer) {
+			writer.append('{');
 
 			// The name (e.g. name: 'Point 1').
-			entries.add((xLabel != null && xLabel.length() > 0) ? "name: '" + xLabel + "'" : null);
+			boolean hasName = xLabel != null && xLabel.length() > 0;
+			if (hasName) {
+				writer.append("name: ").appendQuoted(xLabel).append(", ");
+			}
 
 			// The optional x value (e.g. x: 5).
-			entries.add((x != null) ? "x: " + x : null);
+			if (x != null) {
+				writer.append("x: ").append(x).append(", ");
+			}
 
-			// The optional x value (e.g. x: 5).
-			entries.add("y: " + ((y != null) ? y : "null"));
+			// The y value (e.g. y: 14).
+			writer.append("y: ").append((y != null) ? y : "null");
 
-			return
-			"{" +
-			StringUtils.join(entries, ", ") +
-			"}";
+			writer.append('}');
 		}
 	}
 
 	private static final long serialVersionUID = 1L;
-	private List<SeriesDataEntry> points = new Vector<SeriesDataEntry>();
+	// average length of the code of a point (e.g. {x: 12, y: 3.5})
+	private static final int POINT_LENGTH = 16;
+	// the number of points kept when the width of the chart is unknown
+	private static final int DEFAULT_THRESHOLD = 1000;
+	private SeriesData points = null;
 	private String name = null;
 	private ChartType seriesType = null;
+	private DownsamplingType downsampling = null;
+	private boolean compactData = true;
+	private boolean intervalDetection = true;
+	private double intervalTolerance = 0;
+	private boolean fillGaps = false;
+	// the categories of the x axis on which the labels are mapped
+	private transient LabelDictionary categories = null;
+	private transient SeriesData internedData = null;
+	private transient int internedVersion = 0;
+	// 0 means derived from the width of the chart
+	private int threshold = 0;
+	private transient int plotWidth = 0;
+	// the points actually rendered and the version/threshold they refer
+	private transient SeriesData renderedData = null;
+	private transient int renderedVersion = 0;
+	private transient int renderedThreshold = 0;
+	// the code generated at last rendering and the points it refers
+	private transient String cachedJS = null;
+	private transient SeriesData cachedData = null;
+	private transient int cachedVersion = 0;
+	// true if null points fill the gaps of the last generated code
+	private transient boolean gridFilled = false;
+	// true if the points in the browser have been replaced since the rendering
+	private transient boolean dataReplaced = false;
+	// true if the browser shows points not of the series (see HighChartJS#showData)
+	private transient boolean otherData = false;
 
 	private SeriesType() {
 		// for serialization only
@@ -111,6 +189,7 @@ public class SeriesType implements Serializable {
 	 */
 	public SeriesType(final String name, final SeriesDataEntry... points) {
 		this(name);
+		this.points = new SeriesData((points != null) ? points.length : 0);
 		if (points != null) {
 			for (SeriesDataEntry point : points) {
 				this.points.add(point);
@@ -118,6 +197,17 @@ public class SeriesType implements Serializable {
 		}
 	}
 
+	/**
+	 * Builds a series on top of an already filled columnar storage
+	 * (e.g. for large series).
+	 * @param name can be null.
+	 * @param points the points of the series (if null an empty one is created).
+	 */
+	public SeriesType(final String name, final SeriesData points) {
+		this(name);
+		this.points = (points != null) ? points : new SeriesData();
+	}
+
 	/**
 	 * If a series must be rendered in a form different from the default one
 	 * expressed for the chart (e.g. all series are columns and this one line).
@@ -125,34 +215,569 @@ public class SeriesType implements Serializable {
 	 */
 	public final void setType(final ChartType seriesType) {
 		this.seriesType = seriesType;
+		this.cachedJS = null;
+	}
+
+	/**
+	 * Reduces the points sent to the browser to about one per pixel of
+	 * the chart, keeping the shape of the series.
+	 * Useful for series with a huge number of samples.
+	 * @param type the strategy to use, null to send all the points.
+	 */
+	public final void setDownsampling(final DownsamplingType type) {
+		this.setDownsampling(type, 0);
+	}
+
+	/**
+	 * Reduces the points sent to the browser to the given number.
+	 * @param type the strategy to use, null to send all the points.
+	 * @param threshold the maximum number of points to send
+	 * (0 to derive it from the width of the chart).
+	 */
+	public final void setDownsampling(final DownsamplingType type, final int threshold) {
+		if (threshold < 0) {
+			throw new IllegalArgumentException("The threshold cannot be negative");
+		}
+		this.downsampling = type;
+		this.threshold = threshold;
+		this.renderedData = null;
+		this.cachedJS = null;
+	}
+
+	public final DownsamplingType getDownsampling() {
+		return this.downsampling;
+	}
+
+	/**
+	 * The threshold passed to {@link #setDownsampling(DownsamplingType, int)}
+	 * (0 if derived from the width of the chart).
+	 */
+	final int getRequestedThreshold() {
+		return this.threshold;
+	}
+
+	/**
+	 * The width (in pixels) of the chart containing the series.
+	 * Used to compute the number of points to keep on downsampling.
+	 */
+	final void setPlotWidth(final int width) {
+		this.plotWidth = width;
+	}
+
+	/**
+	 * The maximum number of points sent to the browser
+	 * (0 if the series is not downsampled).
+	 */
+	public final int getThreshold() {
+		if (this.downsampling == null) {
+			return 0;
+		}
+		if (this.threshold > 0) {
+			return this.threshold;
+		}
+		return (this.plotWidth > 0) ? this.plotWidth : DEFAULT_THRESHOLD;
+	}
+
+	/**
+	 * The points actually sent to the browser, that is the ones of the
+	 * series once downsampled (see {@link #setDownsampling(DownsamplingType)}).
+	 * The reduction is computed again only if the points or the
+	 * threshold changed.
+	 */
+	public final SeriesData getRenderedData() {
+		int currThreshold = this.getThreshold();
+		if (currThreshold == 0) {
+			return this.points;
+		}
+		if (this.renderedData == null
+				|| this.renderedVersion != this.points.getVersion()
+				|| this.renderedThreshold != currThreshold) {
+			this.renderedData = Downsampler.downsample(this.points, this.downsampling, currThreshold);
+			this.renderedVersion = this.points.getVersion();
+			this.renderedThreshold = currThreshold;
+		}
+		return this.renderedData;
+	}
+
+	/**
+	 * By default the points are written in the most compact form accepted
+	 * by highcharts (e.g. [5, 14, 3] or [[0, 5], [1, 14]]) and only the
+	 * labeled points are written as objects (e.g. {name: 'P1', y: 5}).
+	 * @param value false to write all the points as objects.
+	 */
+	public final void setCompactData(final boolean value) {
+		this.compactData = value;
+		this.cachedJS = null;
+	}
+
+	/**
+	 * By default, in compact mode (see {@link #setCompactData(boolean)}),
+	 * if the x values of the points are uniformly spaced (e.g. samples
+	 * taken every minute) they are not written and the pointStart and
+	 * pointInterval options of the series are used instead.
+	 * Points outside the spacing keep their x.
+	 * @param value false to always write the x values.
+	 */
+	public final void setIntervalDetection(final boolean value) {
+		this.intervalDetection = value;
+		this.cachedJS = null;
+	}
+
+	/**
+	 * The maximum distance from the regular spacing allowed to a point to
+	 * be written without x (the point is moved on the spacing).
+	 * @param tolerance a fraction of the interval between points
+	 * (e.g. 0.01 for 1%, default 0).
+	 */
+	public final void setIntervalTolerance(final double tolerance) {
+		if (tolerance < 0 || tolerance >= 0.5) {
+			throw new IllegalArgumentException("The tolerance must be in [0, 0.5)");
+		}
+		this.intervalTolerance = tolerance;
+		this.cachedJS = null;
+	}
+
+	/**
+	 * The missing samples of uniformly spaced series are written as null
+	 * points, so that also the points after a gap are written without x.
+	 * By default they are connected (unless the series has missing points
+	 * of its own, in that case the points after a gap keep their x).
+	 * @param value true to write them as any missing point, interrupting
+	 * the line (default false).
+	 */
+	public final void setFillGaps(final boolean value) {
+		this.fillGaps = value;
+		this.cachedJS = null;
+	}
+
+	/**
+	 * If set, the labeled points are placed on the categories of the
+	 * x axis (i.e. they are written as [category, y]) instead of
+	 * repeating their label.
+	 * @param categories null to write the labels of the points.
+	 */
+	final void setCategories(final LabelDictionary categories) {
+		if (this.categories != categories) {
+			this.categories = categories;
+			this.internedData = null;
+			this.cachedJS = null;
+		}
+	}
+
+	/**
+	 * Adds the labels of the points to the categories.
+	 * The points are scanned only if changed since the last invocation.
+	 */
+	final void internLabels() {
+		SeriesData data = this.getRenderedData();
+		if (this.categories == null || !data.hasLabels()
+				|| (this.internedData == data && this.internedVersion == data.getVersion())) {
+			return;
+		}
+		if (data.getDictionary() != this.categories) {
+			for (int i = 0; i < data.size(); i++) {
+				String label = data.getLabel(i);
+				if (label != null) {
+					this.categories.intern(label);
+				}
+			}
+		}
+		this.internedData = data;
+		this.internedVersion = data.getVersion();
+	}
+
+	/*
+	 * The category of the point or -1 if not labeled
+	 * (or the categories are not used).
+	 */
+	private int getCategory(final SeriesData data, final int index) {
+		if (this.categories == null) {
+			return -1;
+		}
+		if (data.getDictionary() == this.categories) {
+			return data.getLabelRef(index);
+		}
+		String label = data.getLabel(index);
+		return (label != null) ? this.categories.indexOf(label) : -1;
+	}
+
+	/*
+	 * The regular spacing of the points (null if not used).
+	 */
+	private PointGrid getGrid(final SeriesData data) {
+		if (!this.compactData || !this.intervalDetection) {
+			return null;
+		}
+		if (this.categories != null && data.hasLabels()) {
+			// the labeled points are placed on the categories
+			return null;
+		}
+		return PointGrid.detect(data, this.intervalTolerance, this.fillGaps);
+	}
+
+	public final String getName() {
+		return this.name;
+	}
+
+	/**
+	 * @return null if the default type of the chart is used.
+	 */
+	public final ChartType getType() {
+		return this.seriesType;
+	}
+
+	public final boolean isCompactData() {
+		return this.compactData;
+	}
+
+	public final boolean isIntervalDetection() {
+		return this.intervalDetection;
+	}
+
+	public final double getIntervalTolerance() {
+		return this.intervalTolerance;
+	}
+
+	public final boolean isFillGaps() {
+		return this.fillGaps;
 	}
 
 	public final void addEntry(final SeriesDataEntry entry) {
 		this.points.add(entry);
 	}
 
+	/**
+	 * Bulk append of points without x (NaN values are missing points).
+	 */
+	public final void addAll(final double[] values) {
+		this.points.addAll(values);
+	}
+
+	/**
+	 * Bulk append of points with x and y (NaN y values are missing points).
+	 */
+	public final void addAll(final double[] xValues, final double[] yValues) {
+		this.points.addAll(xValues, yValues);
+	}
+
+	/**
+	 * Replaces the point at the given position.
+	 * @param index the position of the point inside the series.
+	 * @param entry the new value of the point.
+	 */
+	public final void setEntry(final int index, final SeriesDataEntry entry) {
+		this.points.set(index, entry);
+	}
+
+	/**
+	 * Replaces all the points of the series.
+	 * @param entries can be null to empty the series.
+	 */
+	public final void setEntries(final List<SeriesDataEntry> entries) {
+		this.points.clear();
+		if (entries != null) {
+			for (SeriesDataEntry entry : entries) {
+				this.points.add(entry);
+			}
+		}
+	}
+
+	/**
+	 * Removes the oldest point of the series (used when shifting
+	 * points on live updates).
+	 */
+	public final void removeFirstEntry() {
+		this.points.removeFirst();
+	}
+
+	/**
+	 * Keeps only the latest points of the series (e.g. for live
+	 * telemetry): once full, each added point evicts the oldest one
+	 * in constant time and without allocations.
+	 * When the points are added through
+	 * {@link HighChartJS#addPoints(SeriesType, List, boolean)} the
+	 * rendered chart shifts its points as well.
+	 * <p>
+	 * <b>Notice:</b> the labels are kept by the dictionary of the points
+	 * also after their eviction, so a window does not bound the memory
+	 * of series having always different labels.
+	 * </p>
+	 * @param maxPoints the number of points to keep (0 for no limit).
+	 */
+	public final void setWindow(final int maxPoints) {
+		this.points.setWindow(maxPoints);
+	}
+
+	/**
+	 * @return the max number of points kept (0 if unbounded).
+	 */
+	public final int getWindow() {
+		return this.points.getWindow();
+	}
+
+	/**
+	 * @return true if the window is full and the next point will
+	 * evict the oldest one.
+	 */
+	public final boolean isFull() {
+		return this.points.isFull();
+	}
+
+	public final int size() {
+		return this.points.size();
+	}
+
+	/**
+	 * The columnar storage of the points of this series.
+	 */
+	public final SeriesData getData() {
+		return this.points;
+	}
+
+	/**
+	 * The javascript array corresponding to the passed points
+	 * (e.g. [5, [2, 14]]).
+	 * @param entries the points to transform.
+	 * @return the js array of points.
+	 */
+	public static String getDataJS(final List<SeriesDataEntry> entries) {
+		return getDataJS(entries, true);
+	}
+
+	/**
+	 * The javascript array corresponding to the passed points.
+	 * @param entries the points to transform.
+	 * @param compact if false all the points are written as objects
+	 * (e.g. [{y: 5}, {x: 2, y: 14}]).
+	 * @return the js array of points.
+	 */
+	public static String getDataJS(final List<SeriesDataEntry> entries, final boolean compact) {
+		JSWriter writer = new JSWriter(16 + ((entries != null) ? entries.size() * POINT_LENGTH : 0));
+		writer.append('[');
+		if (entries != null) {
+			boolean first = true;
+			for (SeriesDataEntry point : entries) {
+				if (!first) {
+					writer.append(", ");
+				}
+				if (compact) {
+					point.writeCompactJS(writer);
+				} else {
+					point.writeJS(writer);
+				}
+				first = false;
+			}
+		}
+		writer.append(']');
+		return writer.toString();
+	}
+
+	/**
+	 * The compact javascript array of a range of points
+	 * (see {@link SeriesData#writeCompactPoint(JSWriter, int)}).
+	 * @param from the first point (included).
+	 * @param to the last point (excluded).
+	 */
+	static String getDataJS(final SeriesData data, final int from, final int to) {
+		JSWriter writer = new JSWriter(16 + (to - from) * POINT_LENGTH);
+		writer.append('[');
+		for (int i = from; i < to; i++) {
+			if (i > from) {
+				writer.append(", ");
+			}
+			data.writeCompactPoint(writer, i);
+		}
+		writer.append(']');
+		return writer.toString();
+	}
+
+	/**
+	 * The expected length (in chars) of the code of this series.
+	 * Used to properly size the buffers at generation phase.
+	 */
+	public final int getJSLength() {
+		return 64 + this.getRenderedData().size() * POINT_LENGTH;
+	}
+
+	/**
+	 * The code is generated only if the series changed since the
+	 * last invocation, otherwise the cached one is returned.
+	 */
 	public final String getJS() {
-		StringBuffer retval = new StringBuffer();
+		SeriesData data = this.getRenderedData();
+		if (!this.isCached(data)) {
+			JSWriter writer = new JSWriter(64 + data.size() * POINT_LENGTH);
+			this.generateJS(writer, data);
+			this.cachedJS = writer.toString();
+			this.cachedData = data;
+			this.cachedVersion = data.getVersion();
+		}
+		return this.cachedJS;
+	}
+
+	/**
+	 * Appends the js object of the series.
+	 * If the writer is streaming and the code is not cached it is
+	 * written directly, without caching it (i.e. big series are never
+	 * kept in memory as a whole).
+	 * @param writer the buffer in which the series is appended.
+	 */
+	public final void writeJS(final JSWriter writer) {
+		SeriesData data = this.getRenderedData();
+		if (writer.isStreaming() && !this.isCached(data)) {
+			this.generateJS(writer, data);
+		} else {
+			writer.append(this.getJS());
+		}
+	}
+
+	private boolean isCached(final SeriesData data) {
+		return this.cachedJS != null && this.cachedData == data && this.cachedVersion == data.getVersion();
+	}
+
+	/**
+	 * @return true if the points shown by the browser are not at the
+	 * positions of the points of the series (e.g. null points fill the
+	 * gaps of the regular spacing, see {@link #setFillGaps(boolean)}, or
+	 * the detail of a zoomed range is shown, see
+	 * {@link HighChartJS#showData(SeriesType, SeriesData)}),
+	 * so they cannot be updated one by one.
+	 */
+	public final boolean isDetached() {
+		return (this.gridFilled && !this.dataReplaced) || this.otherData;
+	}
+
+	/*
+	 * Invoked once the chart is rendered (also through the cached code).
+	 */
+	final void setRendered() {
+		this.dataReplaced = false;
+		this.otherData = false;
+	}
 
+	/*
+	 * Invoked once the points in the browser have been replaced by the
+	 * ones of the series (own) or by other ones.
+	 */
+	final void setDataReplaced(final boolean own) {
+		this.dataReplaced = true;
+		this.otherData = !own;
+	}
+
+	/**
+	 * Forces the generation of the code at next rendering.
+	 */
+	public final void invalidateJS() {
+		this.cachedJS = null;
+		this.renderedData = null;
+	}
+
+	private void generateJS(final JSWriter writer, final SeriesData data) {
 		// The header
-		retval.append("{ ");
+		writer.append("{ ");
 		// The label of the series
-		retval.append(((this.name != null && this.name.length() > 0) ?  "name: '" + this.name + "', " : ""));
+		if (this.name != null && this.name.length() > 0) {
+			writer.append("name: ").appendQuoted(this.name).append(", ");
+		}
+
+		// The regular spacing of the points (e.g. pointStart: 0, pointInterval: 10)
+		PointGrid grid = this.getGrid(data);
+		if (grid != null) {
+			grid.writeJS(writer);
+		}
 
 		// The data
-		List<String> entries = new Vector<String>();
-		for (SeriesDataEntry point : this.points) {
-			entries.add(point.getJS());
+		writer.append("data: [");
+		for (int i = 0; i < data.size(); i++) {
+			if (i > 0) {
+				writer.append(", ");
+			}
+			long gap = (grid != null) ? grid.place(i) : -1;
+			int category = this.getCategory(data, i);
+			if (gap >= 0) {
+				for (long j = 0; j < gap; j++) {
+					writer.append("null, ");
+				}
+				data.writeImplicitPoint(writer, i);
+			} else if (category >= 0) {
+				writer.append(this.compactData ? "[" : "{x: ").append(category);
+				writer.append(this.compactData ? ", " : ", y: ");
+				data.writeY(writer, i);
+				writer.append(this.compactData ? ']' : '}');
+			} else if (this.compactData) {
+				data.writeCompactPoint(writer, i);
+			} else {
+				data.writePoint(writer, i);
+			}
 		}
-		retval.append("data: [" + StringUtils.join(entries, ", ") + "],");
+		writer.append("],");
+		this.gridFilled = grid != null && grid.hasFilled();
+		this.dataReplaced = false;
 
 		if (this.seriesType != null) {
-			retval.append("type: '" + this.seriesType.toString() + "'");
+			writer.append("type: ").appendQuoted(this.seriesType);
 		}
 
 		// The footer
-		retval.append(" }");
+		writer.append(" }");
+	}
 
-		return retval.toString();
+	/**
+	 * Adds the js object of the series to the current array.
+	 * @param builder the builder of the chart object.
+	 */
+	public final void build(final JSObjectBuilder builder) {
+		builder.beginObject(null);
+		if (this.name != null && this.name.length() > 0) {
+			builder.addString("name", this.name);
+		}
+		SeriesData data = this.getRenderedData();
+		PointGrid grid = this.getGrid(data);
+		if (grid != null) {
+			grid.build(builder);
+		}
+		builder.beginArray("data");
+		for (int i = 0; i < data.size(); i++) {
+			long gap = (grid != null) ? grid.place(i) : -1;
+			int category = this.getCategory(data, i);
+			if (gap >= 0) {
+				for (long j = 0; j < gap; j++) {
+					builder.addNull(null);
+				}
+				data.buildImplicitPoint(builder, i);
+			} else if (category >= 0) {
+				this.buildCategoryPoint(builder, data, i, category);
+			} else if (this.compactData) {
+				data.buildCompactPoint(builder, i);
+			} else {
+				data.buildPoint(builder, i);
+			}
+		}
+		builder.endArray();
+		this.gridFilled = grid != null && grid.hasFilled();
+		this.dataReplaced = false;
+		if (this.seriesType != null) {
+			builder.addString("type", this.seriesType.toString());
+		}
+		builder.endObject();
+	}
+
+	private void buildCategoryPoint(final JSObjectBuilder builder, final SeriesData data, final int index, final int category) {
+		if (this.compactData) {
+			builder.beginArray(null);
+		} else {
+			builder.beginObject(null);
+		}
+		builder.addNumber(this.compactData ? null : "x", category);
+		if (data.isNull(index)) {
+			builder.addNull(this.compactData ? null : "y");
+		} else {
+			builder.addNumber(this.compactData ? null : "y", data.getJSY(index));
+		}
+		if (this.compactData) {
+			builder.endArray();
+		} else {
+			builder.endObject();
+		}
 	}
 }
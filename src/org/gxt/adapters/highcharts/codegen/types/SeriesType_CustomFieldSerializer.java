@@ -0,0 +1,78 @@
+/****************************************************************************
+ *  This software is part of the HighchartsJS adapters for Ext GWT.
+ ****************************************************************************
+ * This library is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this library.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ ****************************************************************************
+ * Filename: SeriesType_CustomFieldSerializer.java
+ ****************************************************************************
+ * @author <a href="mailto:daniele.strollo@gmail.com">Daniele Strollo</a>
+ ***************************************************************************/
+
+package org.gxt.adapters.highcharts.codegen.types;
+
+import org.gxt.adapters.highcharts.codegen.sections.options.types.ChartType;
+import com.google.gwt.user.client.rpc.SerializationException;
+import com.google.gwt.user.client.rpc.SerializationStreamReader;
+import com.google.gwt.user.client.rpc.SerializationStreamWriter;
+
+/**
+ * GWT-RPC serialization of {@link SeriesType}: the points are written
+ * as primitive columns (see {@link SeriesData_CustomFieldSerializer})
+ * followed by the settings of the series (the enums as their
+ * position, -1 for null).
+ * The code generated for the series is not serialized.
+ * <p>
+ * <b>Notice:</b> together with {@link SeriesData_CustomFieldSerializer}
+ * the only classes of the codegen package depending on GWT (gwt-servlet
+ * on the server), they are not needed outside GWT-RPC (e.g. by the
+ * benchmarks, see build.xml).
+ * </p>
+ * @author Daniele Strollo
+ */
+public final class SeriesType_CustomFieldSerializer {
+	private SeriesType_CustomFieldSerializer() {
+	}
+
+	public static void serialize(final SerializationStreamWriter writer, final SeriesType series)
+	throws SerializationException {
+		writer.writeString(series.getName());
+		SeriesData_CustomFieldSerializer.serialize(writer, series.getData());
+		writer.writeInt((series.getType() != null) ? series.getType().ordinal() : -1);
+		writer.writeInt((series.getDownsampling() != null) ? series.getDownsampling().ordinal() : -1);
+		writer.writeInt(series.getRequestedThreshold());
+		writer.writeBoolean(series.isCompactData());
+		writer.writeBoolean(series.isIntervalDetection());
+		writer.writeDouble(series.getIntervalTolerance());
+		writer.writeBoolean(series.isFillGaps());
+	}
+
+	public static SeriesType instantiate(final SerializationStreamReader reader)
+	throws SerializationException {
+		String name = reader.readString();
+		return new SeriesType(name, SeriesData_CustomFieldSerializer.instantiate(reader));
+	}
+
+	public static void deserialize(final SerializationStreamReader reader, final SeriesType series)
+	throws SerializationException {
+		int type = reader.readInt();
+		series.setType((type >= 0) ? ChartType.values()[type] : null);
+		int downsampling = reader.readInt();
+		series.setDownsampling((downsampling >= 0) ? DownsamplingType.values()[downsampling] : null, reader.readInt());
+		series.setCompactData(reader.readBoolean());
+		series.setIntervalDetection(reader.readBoolean());
+		series.setIntervalTolerance(reader.readDouble());
+		series.setFillGaps(reader.readBoolean());
+	}
+}
@@ -0,0 +1,116 @@
+/****************************************************************************
+ *  This software is part of the HighchartsJS adapters for Ext GWT.
+ ****************************************************************************
+ * This library is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this library.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ ****************************************************************************
+ * Filename: UpdatePlan.java
+ ****************************************************************************
+ * @author <a href="mailto:daniele.strollo@gmail.com">Daniele Strollo</a>
+ ***************************************************************************/
+
+package org.gxt.adapters.highcharts.codegen.types;
+
+import java.util.ArrayList;
+import java.util.List;
+import org.gxt.adapters.highcharts.codegen.sections.Section.SectionKeys;
+import org.gxt.adapters.highcharts.codegen.utils.JSWriter;
+
+/**
+ * The changes to apply to a rendered chart for bringing it to a new
+ * state, computed by {@link ChartDiff}.
+ * The changes are applied at once by applyChartUpdates of gxt-adapter.js,
+ * redrawing the chart only at the end.
+ * If some change cannot be applied in place (e.g. an option removed)
+ * the plan requires instead the full rendering of the chart.
+ * @author Daniele Strollo
+ */
+public final class UpdatePlan {
+	// the js objects of the changes, in order of application
+	private List<String> steps = new ArrayList<String>();
+	private boolean fullRender = false;
+
+	UpdatePlan() {
+	}
+
+	/**
+	 * @return true if the two states are the same.
+	 */
+	public boolean isEmpty() {
+		return !this.fullRender && this.steps.isEmpty();
+	}
+
+	/**
+	 * @return true if the chart must be rendered again.
+	 */
+	public boolean isFullRender() {
+		return this.fullRender;
+	}
+
+	/**
+	 * The number of changes to apply.
+	 */
+	public int size() {
+		return this.steps.size();
+	}
+
+	/**
+	 * The js array of the changes.
+	 */
+	public String getJS() {
+		int length = 2;
+		for (String step : this.steps) {
+			length += step.length() + 2;
+		}
+		JSWriter writer = new JSWriter(length);
+		writer.append('[');
+		for (int i = 0; i < this.steps.size(); i++) {
+			if (i > 0) {
+				writer.append(", ");
+			}
+			writer.append(this.steps.get(i));
+		}
+		writer.append(']');
+		return writer.toString();
+	}
+
+	void requireFullRender() {
+		this.fullRender = true;
+		this.steps.clear();
+	}
+
+	void updateSection(final SectionKeys key, final String optionsJS) {
+		this.steps.add("{op: 'section', key: '" + key + "', options: {" + optionsJS + "}}");
+	}
+
+	void removeSeries(final int index) {
+		this.steps.add("{op: 'remove', series: " + index + "}");
+	}
+
+	void addSeries(final String seriesJS) {
+		this.steps.add("{op: 'add', options: " + seriesJS + "}");
+	}
+
+	/**
+	 * @param shiftFrom the position of the first point removing
+	 * the oldest one of the series.
+	 */
+	void appendPoints(final int index, final String pointsJS, final int shiftFrom) {
+		this.steps.add("{op: 'append', series: " + index + ", points: " + pointsJS + ", shiftFrom: " + shiftFrom + "}");
+	}
+
+	void setData(final int index, final String dataJS) {
+		this.steps.add("{op: 'data', series: " + index + ", data: " + dataJS + "}");
+	}
+}
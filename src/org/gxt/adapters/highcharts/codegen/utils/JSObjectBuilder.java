@@ -0,0 +1,61 @@
+/****************************************************************************
+ *  This software is part of the HighchartsJS adapters for Ext GWT.
+ ****************************************************************************
+ * This library is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this library.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ ****************************************************************************
+ * Filename: JSObjectBuilder.java
+ ****************************************************************************
+ * @author <a href="mailto:daniele.strollo@gmail.com">Daniele Strollo</a>
+ ***************************************************************************/
+
+package org.gxt.adapters.highcharts.codegen.utils;
+
+/**
+ * Builder of javascript objects.
+ * It is the structured counterpart of {@link JSWriter}: instead of
+ * generating the source code of the chart, the elements of the chart
+ * describe themselves through this interface so that the implementations
+ * can directly create the corresponding javascript objects
+ * (e.g. without parsing and evaluating a script).
+ * <p>
+ * For all methods the key is the name of the property inside the current
+ * object; a null key means that the value is appended to the current array.
+ * </p>
+ * @author Daniele Strollo
+ */
+public interface JSObjectBuilder {
+	void beginObject(String key);
+
+	void endObject();
+
+	void beginArray(String key);
+
+	void endArray();
+
+	void addString(String key, String value);
+
+	void addNumber(String key, double value);
+
+	void addBoolean(String key, boolean value);
+
+	void addNull(String key);
+
+	/**
+	 * Merges inside the current object a raw option
+	 * (e.g. "text: 'My first chart'").
+	 * @param code the raw js code of the option.
+	 */
+	void addRaw(String code);
+}
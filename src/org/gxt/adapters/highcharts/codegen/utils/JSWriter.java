@@ -0,0 +1,168 @@
+/****************************************************************************
+ *  This software is part of the HighchartsJS adapters for Ext GWT.
+ ****************************************************************************
+ * This library is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this library.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ ****************************************************************************
+ * Filename: JSWriter.java
+ ****************************************************************************
+ * @author <a href="mailto:daniele.strollo@gmail.com">Daniele Strollo</a>
+ ***************************************************************************/
+
+package org.gxt.adapters.highcharts.codegen.utils;
+
+/**
+ * The buffer in which the javascript code of the chart is generated.
+ * A single writer is passed through all the elements of the chart
+ * (sections, options and series) and each of them appends its own
+ * code in place, so that no intermediate strings are created.
+ * <p>
+ * The code can be also streamed (e.g. to the response of a servlet):
+ * once the buffer reaches the chunk size its content is passed to a
+ * {@link Sink} and the buffer is emptied, so the memory used does not
+ * depend on the size of the chart.
+ * </p>
+ * @author Daniele Strollo
+ */
+public final class JSWriter {
+	private static final int DEFAULT_CAPACITY = 1024;
+	private StringBuilder buffer = null;
+	// null if the code is kept in the buffer
+	private Sink sink = null;
+	private int chunkSize = 0;
+	// the chars already passed to the sink
+	private int flushed = 0;
+
+	/**
+	 * The destination of the streamed code.
+	 */
+	public interface Sink {
+		/**
+		 * @param chunk the next part of the code.
+		 */
+		void write(String chunk);
+	}
+
+	public JSWriter() {
+		this(DEFAULT_CAPACITY);
+	}
+
+	/**
+	 * @param capacity the expected size (in chars) of the generated code.
+	 */
+	public JSWriter(final int capacity) {
+		this.buffer = new StringBuilder(Math.max(capacity, 16));
+	}
+
+	/**
+	 * Creates a writer streaming the code in chunks.
+	 * {@link #flush()} must be invoked at the end of the generation.
+	 * @param sink the destination of the code.
+	 * @param chunkSize the number of chars buffered before writing them.
+	 */
+	public JSWriter(final Sink sink, final int chunkSize) {
+		this(chunkSize);
+		this.sink = sink;
+		this.chunkSize = Math.max(chunkSize, 16);
+	}
+
+	/**
+	 * @return true if the code is streamed and not kept in memory.
+	 */
+	public boolean isStreaming() {
+		return this.sink != null;
+	}
+
+	/**
+	 * Passes the buffered code to the sink (if any).
+	 */
+	public void flush() {
+		if (this.sink != null && this.buffer.length() > 0) {
+			this.flushed += this.buffer.length();
+			this.sink.write(this.buffer.toString());
+			this.buffer = new StringBuilder(this.chunkSize);
+		}
+	}
+
+	public JSWriter append(final String value) {
+		this.buffer.append(value);
+		this.checkFlush();
+		return this;
+	}
+
+	public JSWriter append(final char value) {
+		this.buffer.append(value);
+		this.checkFlush();
+		return this;
+	}
+
+	public JSWriter append(final long value) {
+		this.buffer.append(value);
+		this.checkFlush();
+		return this;
+	}
+
+	public JSWriter append(final Object value) {
+		this.buffer.append(value);
+		this.checkFlush();
+		return this;
+	}
+
+	/**
+	 * Appends a js string (e.g. 'value').
+	 */
+	public JSWriter appendQuoted(final Object value) {
+		this.buffer.append('\'').append(value).append('\'');
+		this.checkFlush();
+		return this;
+	}
+
+	/**
+	 * Appends a number preserving its original representation.
+	 * @param value the number to append.
+	 * @param floating if false the value is written as integral
+	 * (e.g. 5 instead of 5.0).
+	 */
+	public JSWriter appendNumber(final double value, final boolean floating) {
+		if (floating) {
+			this.buffer.append(String.valueOf(value));
+		} else {
+			this.buffer.append((long) value);
+		}
+		this.checkFlush();
+		return this;
+	}
+
+	/**
+	 * The number of chars written so far.
+	 */
+	public int length() {
+		return this.flushed + this.buffer.length();
+	}
+
+	/**
+	 * The code written so far or, when streaming, only the one
+	 * not yet passed to the sink.
+	 */
+	@Override
+	public String toString() {
+		return this.buffer.toString();
+	}
+
+	private void checkFlush() {
+		if (this.sink != null && this.buffer.length() >= this.chunkSize) {
+			this.flush();
+		}
+	}
+}
@@ -0,0 +1,92 @@
+/****************************************************************************
+ *  This software is part of the HighchartsJS adapters for Ext GWT.
+ ****************************************************************************
+ * This library is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this library.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ ****************************************************************************
+ * Filename: ChartConfigServlet.java
+ ****************************************************************************
+ * @author <a href="mailto:daniele.strollo@gmail.com">Daniele Strollo</a>
+ ***************************************************************************/
+
+package org.gxt.adapters.highcharts.server;
+
+import java.io.IOException;
+
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.gxt.adapters.highcharts.codegen.types.HighChartJS;
+import org.gxt.adapters.highcharts.codegen.utils.JSWriter;
+
+/**
+ * Serves the options of the charts generated on the server
+ * (see {@link HighChartJS#writeOptions(JSWriter)}), identified by the
+ * request parameter id.
+ * The code is streamed in chunks while it is generated, so also the
+ * charts of big reports are never kept in memory as a whole.
+ * <pre>
+ * public class ReportServlet extends ChartConfigServlet {
+ *   protected HighChartJS getChart(final String id, final HttpServletRequest request) {
+ *     HighChartJS chart = new HighChartJS(id);
+ *     chart.setDivId(request.getParameter("div"));
+ *     chart.addSeries(reports.getSeries(id));
+ *     return chart;
+ *   }
+ * }
+ * </pre>
+ * The response is the object literal to pass to the highchart
+ * constructor, evaluated on the client inside the GWT module
+ * (its events refer $wnd).
+ * @author Daniele Strollo
+ */
+public abstract class ChartConfigServlet extends HttpServlet {
+	private static final long serialVersionUID = 1L;
+	public static final String CONTENT_TYPE = "text/javascript; charset=UTF-8";
+	public static final String PARAM_ID = "id";
+	// the chars buffered before writing them to the response
+	private static final int CHUNK_SIZE = 8192;
+
+	/**
+	 * @param id the id of the chart requested.
+	 * @return the chart or null if not found.
+	 */
+	protected abstract HighChartJS getChart(final String id, final HttpServletRequest request)
+	throws ServletException, IOException;
+
+	@Override
+	protected void doGet(final HttpServletRequest request, final HttpServletResponse response)
+	throws ServletException, IOException {
+		String id = request.getParameter(PARAM_ID);
+		if (id == null || id.trim().length() == 0) {
+			response.sendError(HttpServletResponse.SC_BAD_REQUEST);
+			return;
+		}
+		HighChartJS chart = this.getChart(id.trim(), request);
+		if (chart == null) {
+			response.sendError(HttpServletResponse.SC_NOT_FOUND);
+			return;
+		}
+		response.setContentType(CONTENT_TYPE);
+		JSWriter writer = new JSWriter(new WriterSink(response.getWriter()), CHUNK_SIZE);
+		try {
+			chart.writeOptions(writer);
+			writer.flush();
+		} catch (WriterSink.StreamException e) {
+			throw e.getCause();
+		}
+	}
+}
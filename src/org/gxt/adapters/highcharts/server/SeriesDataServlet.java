@@ -0,0 +1,80 @@
+/****************************************************************************
+ *  This software is part of the HighchartsJS adapters for Ext GWT.
+ ****************************************************************************
+ * This library is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this library.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ ****************************************************************************
+ * Filename: SeriesDataServlet.java
+ ****************************************************************************
+ * @author <a href="mailto:daniele.strollo@gmail.com">Daniele Strollo</a>
+ ***************************************************************************/
+
+package org.gxt.adapters.highcharts.server;
+
+import java.io.IOException;
+
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.gxt.adapters.highcharts.codegen.types.SeriesData;
+
+/**
+ * Serves the points of a series in binary format
+ * (see {@link SeriesEncoder}), to be loaded on the client through
+ * org.gxt.adapters.highcharts.widgets.BinarySeriesLoader.
+ * <pre>
+ * public class CpuServlet extends SeriesDataServlet {
+ *   protected SeriesData getSeriesData(final HttpServletRequest request) {
+ *     SeriesData data = new SeriesData(samples.length);
+ *     data.addAll(timestamps, samples);
+ *     return data;
+ *   }
+ * }
+ * </pre>
+ * @author Daniele Strollo
+ */
+public abstract class SeriesDataServlet extends HttpServlet {
+	private static final long serialVersionUID = 1L;
+	public static final String CONTENT_TYPE = "application/octet-stream";
+
+	/**
+	 * @return the points requested or null if not found.
+	 */
+	protected abstract SeriesData getSeriesData(final HttpServletRequest request)
+	throws ServletException, IOException;
+
+	/**
+	 * If the y values can be sent with single precision.
+	 * By default true if the request has the parameter float32=true.
+	 */
+	protected boolean isFloat32(final HttpServletRequest request) {
+		return "true".equals(request.getParameter("float32"));
+	}
+
+	@Override
+	protected void doGet(final HttpServletRequest request, final HttpServletResponse response)
+	throws ServletException, IOException {
+		SeriesData data = this.getSeriesData(request);
+		if (data == null) {
+			response.sendError(HttpServletResponse.SC_NOT_FOUND);
+			return;
+		}
+		byte[] encoded = SeriesEncoder.encode(data, this.isFloat32(request));
+		response.setContentType(CONTENT_TYPE);
+		response.setContentLength(encoded.length);
+		response.getOutputStream().write(encoded);
+	}
+}
@@ -0,0 +1,146 @@
+/****************************************************************************
+ *  This software is part of the HighchartsJS adapters for Ext GWT.
+ ****************************************************************************
+ * This library is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this library.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ ****************************************************************************
+ * Filename: SeriesEncoder.java
+ ****************************************************************************
+ * @author <a href="mailto:daniele.strollo@gmail.com">Daniele Strollo</a>
+ ***************************************************************************/
+
+package org.gxt.adapters.highcharts.server;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+import org.gxt.adapters.highcharts.codegen.types.BinarySeriesFormat;
+import org.gxt.adapters.highcharts.codegen.types.SeriesData;
+
+/**
+ * Encodes the points of a series in binary format
+ * (see {@link BinarySeriesFormat}).
+ * Integral x values (e.g. timestamps) are stored as varint deltas,
+ * the others as float64. Points without x (in series where other
+ * points have it) get their position as x.
+ * @author Daniele Strollo
+ */
+public final class SeriesEncoder {
+	private SeriesEncoder() {
+	}
+
+	/**
+	 * @param data the points to encode (labels are not encoded).
+	 * @param float32 if true the y values are stored with single precision
+	 * (half the size, about 7 significant digits).
+	 * @return the encoded points.
+	 */
+	public static byte[] encode(final SeriesData data, final boolean float32) {
+		int count = data.size();
+		int flags = float32 ? BinarySeriesFormat.FLAG_FLOAT32 : 0;
+		boolean hasNulls = false;
+		boolean integralX = true;
+		for (int i = 0; i < count; i++) {
+			hasNulls |= data.isNull(i);
+			if (integralX && data.hasXValues()) {
+				double x = xOf(data, i);
+				integralX = x == Math.floor(x) && Math.abs(x) <= BinarySeriesFormat.MAX_DELTA_X;
+			}
+		}
+
+		byte[] xColumn = new byte[0];
+		if (data.hasXValues()) {
+			flags |= BinarySeriesFormat.FLAG_X;
+			if (integralX) {
+				flags |= BinarySeriesFormat.FLAG_X_DELTA;
+				xColumn = encodeDeltas(data);
+			} else {
+				xColumn = encodeDoubles(data);
+			}
+		}
+		if (hasNulls) {
+			flags |= BinarySeriesFormat.FLAG_NULLS;
+		}
+
+		int yLength = BinarySeriesFormat.pad(count * (float32 ? 4 : 8));
+		int xLength = BinarySeriesFormat.pad(xColumn.length);
+		int bitmapLength = hasNulls ? (count + 7) / 8 : 0;
+		ByteBuffer out = ByteBuffer.allocate(BinarySeriesFormat.HEADER_LENGTH + yLength + xLength + bitmapLength);
+		out.order(ByteOrder.LITTLE_ENDIAN);
+
+		// The header
+		out.put((byte) 'H').put((byte) 'C').put((byte) 'S').put((byte) BinarySeriesFormat.VERSION);
+		out.put((byte) flags).put((byte) 0).put((byte) 0).put((byte) 0);
+		out.putInt(count);
+		out.putInt(xLength);
+
+		// The y column
+		for (int i = 0; i < count; i++) {
+			double y = data.isNull(i) ? Double.NaN : data.getY(i);
+			if (float32) {
+				out.putFloat((float) y);
+			} else {
+				out.putDouble(y);
+			}
+		}
+		out.position(BinarySeriesFormat.HEADER_LENGTH + yLength);
+
+		// The x column
+		out.put(xColumn);
+		out.position(BinarySeriesFormat.HEADER_LENGTH + yLength + xLength);
+
+		// The null bitmap
+		if (hasNulls) {
+			byte[] bitmap = new byte[bitmapLength];
+			for (int i = 0; i < count; i++) {
+				if (data.isNull(i)) {
+					bitmap[i >>> 3] |= 1 << (i & 7);
+				}
+			}
+			out.put(bitmap);
+		}
+		return out.array();
+	}
+
+	private static byte[] encodeDoubles(final SeriesData data) {
+		ByteBuffer out = ByteBuffer.allocate(data.size() * 8).order(ByteOrder.LITTLE_ENDIAN);
+		for (int i = 0; i < data.size(); i++) {
+			out.putDouble(xOf(data, i));
+		}
+		return out.array();
+	}
+
+	private static byte[] encodeDeltas(final SeriesData data) {
+		ByteArrayOutputStream out = new ByteArrayOutputStream(data.size() * 2);
+		long previous = 0;
+		for (int i = 0; i < data.size(); i++) {
+			long x = (long) xOf(data, i);
+			long delta = x - previous;
+			previous = x;
+			// zigzag: small negative deltas become small positive numbers
+			long value = (delta << 1) ^ (delta >> 63);
+			while ((value & ~0x7FL) != 0) {
+				out.write((int) ((value & 0x7F) | 0x80));
+				value >>>= 7;
+			}
+			out.write((int) value);
+		}
+		return out.toByteArray();
+	}
+
+	private static double xOf(final SeriesData data, final int index) {
+		return data.hasX(index) ? data.getX(index) : index;
+	}
+}
@@ -0,0 +1,71 @@
+/****************************************************************************
+ *  This software is part of the HighchartsJS adapters for Ext GWT.
+ ****************************************************************************
+ * This library is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this library.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ ****************************************************************************
+ * Filename: WriterSink.java
+ ****************************************************************************
+ * @author <a href="mailto:daniele.strollo@gmail.com">Daniele Strollo</a>
+ ***************************************************************************/
+
+package org.gxt.adapters.highcharts.server;
+
+import java.io.IOException;
+import java.io.Writer;
+
+import org.gxt.adapters.highcharts.codegen.utils.JSWriter;
+
+/**
+ * Streams the code generated through a {@link JSWriter} to a {@link Writer}.
+ * <pre>
+ * JSWriter writer = new JSWriter(new WriterSink(out), 8192);
+ * chart.writeOptions(writer);
+ * writer.flush();
+ * </pre>
+ * Since the sink cannot throw checked exceptions, the ones of the
+ * writer are wrapped inside a {@link StreamException}.
+ * @author Daniele Strollo
+ */
+public final class WriterSink implements JSWriter.Sink {
+	private Writer out = null;
+
+	public WriterSink(final Writer out) {
+		this.out = out;
+	}
+
+	public void write(final String chunk) {
+		try {
+			this.out.write(chunk);
+		} catch (IOException e) {
+			throw new StreamException(e);
+		}
+	}
+
+	/**
+	 * An error writing the code.
+	 */
+	public static final class StreamException extends RuntimeException {
+		private static final long serialVersionUID = 1L;
+
+		public StreamException(final IOException cause) {
+			super(cause);
+		}
+
+		@Override
+		public IOException getCause() {
+			return (IOException) super.getCause();
+		}
+	}
+}
@@ -0,0 +1,210 @@
+/****************************************************************************
+ *  This software is part of the HighchartsJS adapters for Ext GWT.
+ ****************************************************************************
+ * This library is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this library.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ ****************************************************************************
+ * Filename: BinarySeriesLoader.java
+ ****************************************************************************
+ * @author <a href="mailto:daniele.strollo@gmail.com">Daniele Strollo</a>
+ ***************************************************************************/
+
+package org.gxt.adapters.highcharts.widgets;
+
+import org.gxt.adapters.highcharts.codegen.types.BinarySeriesFormat;
+import org.gxt.adapters.highcharts.codegen.types.SeriesData;
+import com.google.gwt.core.client.JavaScriptObject;
+import com.google.gwt.user.client.rpc.AsyncCallback;
+
+/**
+ * Loads the points of a series sent by the server in binary format
+ * (see {@link BinarySeriesFormat}) and decodes them directly from
+ * the typed arrays of the response.
+ * <pre>
+ * BinarySeriesLoader.load("cpu?float32=true", new AsyncCallback&lt;SeriesData&gt;() {
+ *   public void onSuccess(final SeriesData data) {
+ *     chart.addSeries(new SeriesType("CPU", data));
+ *   }
+ *   public void onFailure(final Throwable caught) {
+ *   }
+ * });
+ * </pre>
+ * Requires a browser supporting typed arrays.
+ * <p>
+ * The format only saves the transfer and the parsing of the response:
+ * the decoded points are copied in a {@link SeriesData} and, as any other
+ * data, they reach the chart as generated javascript (or options objects),
+ * so the rendering costs as much as with points loaded in any other way.
+ * </p>
+ * @author Daniele Strollo
+ */
+public final class BinarySeriesLoader {
+	private BinarySeriesLoader() {
+	}
+
+	/**
+	 * Loads (asynchronously) the points from the given url.
+	 * @param url the address of the series (e.g. a SeriesDataServlet).
+	 * @param callback receives the decoded points.
+	 */
+	public static native void load(final String url, final AsyncCallback<SeriesData> callback) /*-{
+		var xhr = new $wnd.XMLHttpRequest();
+		xhr.open('GET', url, true);
+		xhr.responseType = 'arraybuffer';
+		xhr.onreadystatechange = $entry(function() {
+			if (xhr.readyState != 4) {
+				return;
+			}
+			xhr.onreadystatechange = function() {};
+			if (xhr.status == 200 && xhr.response != null) {
+				@org.gxt.adapters.highcharts.widgets.BinarySeriesLoader::onLoad(Lcom/google/gwt/core/client/JavaScriptObject;Lcom/google/gwt/user/client/rpc/AsyncCallback;)(xhr.response, callback);
+			} else {
+				@org.gxt.adapters.highcharts.widgets.BinarySeriesLoader::onError(Ljava/lang/String;ILcom/google/gwt/user/client/rpc/AsyncCallback;)(url, xhr.status, callback);
+			}
+		});
+		xhr.send(null);
+	}-*/;
+
+	private static void onLoad(final JavaScriptObject buffer, final AsyncCallback<SeriesData> callback) {
+		SeriesData data = null;
+		try {
+			data = decode(buffer);
+		} catch (IllegalArgumentException e) {
+			callback.onFailure(e);
+			return;
+		}
+		callback.onSuccess(data);
+	}
+
+	private static void onError(final String url, final int status, final AsyncCallback<SeriesData> callback) {
+		callback.onFailure(new Exception("Unable to load " + url + " (HTTP status " + status + ")"));
+	}
+
+	/**
+	 * Decodes the points of a series.
+	 * @param buffer the ArrayBuffer containing the encoded points.
+	 * @return the decoded points.
+	 * @throws IllegalArgumentException if the buffer is not in binary format.
+	 */
+	public static SeriesData decode(final JavaScriptObject buffer) {
+		int count = readCount(buffer, BinarySeriesFormat.VERSION);
+		if (count < 0) {
+			throw new IllegalArgumentException("Not a series in binary format (version " + BinarySeriesFormat.VERSION + ")");
+		}
+		int flags = readFlags(buffer);
+		double[] ys = new double[count];
+		double[] xs = ((flags & BinarySeriesFormat.FLAG_X) != 0) ? new double[count] : null;
+		decodeColumns(buffer, count, flags, ys, xs);
+		SeriesData retval = new SeriesData(count);
+		retval.addAll(xs, ys);
+		return retval;
+	}
+
+	/*
+	 * The number of points or -1 if the header is not valid.
+	 */
+	private static native int readCount(final JavaScriptObject buffer, final int version) /*-{
+		if (buffer.byteLength < @org.gxt.adapters.highcharts.codegen.types.BinarySeriesFormat::HEADER_LENGTH) {
+			return -1;
+		}
+		var view = new $wnd.DataView(buffer);
+		if (view.getUint8(0) != 72 || view.getUint8(1) != 67 || view.getUint8(2) != 83
+				|| view.getUint8(3) != version) {
+			return -1;
+		}
+		return view.getUint32(8, true);
+	}-*/;
+
+	private static native int readFlags(final JavaScriptObject buffer) /*-{
+		return new $wnd.DataView(buffer).getUint8(4);
+	}-*/;
+
+	/*
+	 * Fills the java arrays with the columns. Float columns are read
+	 * through typed arrays (if the platform is little-endian, as almost
+	 * all are), otherwise through a DataView.
+	 */
+	private static native void decodeColumns(final JavaScriptObject buffer, final int count, final int flags,
+			final double[] ys, final double[] xs) /*-{
+		var view = new $wnd.DataView(buffer);
+		var littleEndian = new $wnd.Uint8Array(new $wnd.Uint16Array([1]).buffer)[0] == 1;
+		var offset = @org.gxt.adapters.highcharts.codegen.types.BinarySeriesFormat::HEADER_LENGTH;
+		var xLength = view.getUint32(12, true);
+		var i = 0;
+
+		// The y column
+		if ((flags & @org.gxt.adapters.highcharts.codegen.types.BinarySeriesFormat::FLAG_FLOAT32) != 0) {
+			if (littleEndian) {
+				var floats = new $wnd.Float32Array(buffer, offset, count);
+				for (i = 0; i < count; i++) {
+					ys[i] = floats[i];
+				}
+			} else {
+				for (i = 0; i < count; i++) {
+					ys[i] = view.getFloat32(offset + i * 4, true);
+				}
+			}
+			offset += @org.gxt.adapters.highcharts.codegen.types.BinarySeriesFormat::pad(I)(count * 4);
+		} else {
+			if (littleEndian) {
+				var doubles = new $wnd.Float64Array(buffer, offset, count);
+				for (i = 0; i < count; i++) {
+					ys[i] = doubles[i];
+				}
+			} else {
+				for (i = 0; i < count; i++) {
+					ys[i] = view.getFloat64(offset + i * 8, true);
+				}
+			}
+			offset += count * 8;
+		}
+
+		// The x column
+		if (xs != null) {
+			if ((flags & @org.gxt.adapters.highcharts.codegen.types.BinarySeriesFormat::FLAG_X_DELTA) != 0) {
+				var bytes = new $wnd.Uint8Array(buffer, offset, xLength);
+				var pos = 0;
+				var x = 0;
+				for (i = 0; i < count; i++) {
+					// varint (multiplications since bit operators are 32 bits)
+					var value = 0;
+					var scale = 1;
+					var b;
+					do {
+						b = bytes[pos++];
+						value += (b & 0x7F) * scale;
+						scale *= 128;
+					} while (b >= 0x80);
+					// zigzag
+					x += (value % 2 == 0) ? value / 2 : -(value + 1) / 2;
+					xs[i] = x;
+				}
+			} else {
+				for (i = 0; i < count; i++) {
+					xs[i] = view.getFloat64(offset + i * 8, true);
+				}
+			}
+			offset += xLength;
+		}
+
+		// The missing points
+		if ((flags & @org.gxt.adapters.highcharts.codegen.types.BinarySeriesFormat::FLAG_NULLS) != 0) {
+			for (i = 0; i < count; i++) {
+				if ((view.getUint8(offset + (i >> 3)) & (1 << (i & 7))) != 0) {
+					ys[i] = NaN;
+				}
+			}
+		}
+	}-*/;
+}
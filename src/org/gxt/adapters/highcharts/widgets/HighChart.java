@@ -23,18 +23,23 @@
 
 package org.gxt.adapters.highcharts.widgets;
 
+import java.util.List;
+import java.util.Vector;
+
 import org.gxt.adapters.highcharts.codegen.sections.Section;
 import org.gxt.adapters.highcharts.codegen.sections.Section.SectionKeys;
 import org.gxt.adapters.highcharts.codegen.sections.options.AvailableSectionOptions;
 import org.gxt.adapters.highcharts.codegen.sections.options.types.ChartType;
+import org.gxt.adapters.highcharts.codegen.types.ChartTemplate;
 import org.gxt.adapters.highcharts.codegen.types.HighChartJS;
 import org.gxt.adapters.highcharts.codegen.types.SeriesType;
+import org.gxt.adapters.highcharts.codegen.types.SeriesType.SeriesDataEntry;
+import org.gxt.adapters.highcharts.codegen.types.UpdatePlan;
 import org.gxt.adapters.highcharts.codegen.utils.IDGen;
 import com.extjs.gxt.ui.client.widget.BoxComponent;
 import com.google.gwt.core.client.GWT;
 import com.google.gwt.user.client.DOM;
 import com.google.gwt.user.client.Element;
-import com.google.gwt.user.client.Timer;
 
 /**
  * The wrapper of hicharts.
@@ -76,8 +81,8 @@ import com.google.gwt.user.client.Timer;
  * <b>// 3 - Graphical options (if needed).</b>
  * // no offset in the resize
  * hc.setHeightOffset(0);
- * // reduces the refresh delay from 1000 to 100.
- * hc.setResizeDelay(100);
+ * // reduces the refresh delay from 100 to 50.
+ * hc.setResizeDelay(50);
  * // not applied if hc.setResizable(false)
  *
  * <b>// 4 - done!!! (e.g. insert inside a gxt LayoutContainer)</b>
@@ -88,10 +93,25 @@ import com.google.gwt.user.client.Timer;
 public class HighChart extends BoxComponent {
 	private static final String DIV_ID_SUFFIX = "-frame";
 	private HighChartJS chartJS = null;
-	private int resizeDelay = 1000;
+	private int resizeDelay = 100;
 	private static final int ID_LENGTH = 16;
 	private boolean autoResize = true;
 	private boolean resizeOnWindow = false;
+	// distances from the viewport (in viewport heights) for lazy rendering
+	private static final double RENDER_DISTANCE = 0.25;
+	private static final double DEHYDRATE_DISTANCE = 2;
+	private boolean lazyRender = false;
+	private boolean dehydrate = false;
+	private List<RenderListener> renderListeners = null;
+	// the metrics of the last rendering (null if not rendered yet)
+	private RenderMetrics renderMetrics = null;
+	// null until a zoom data provider is set
+	private ZoomLoader zoomLoader = null;
+
+	static {
+		// the charts created by the widgets live inside the page
+		HighChartJS.setBridge(JSNIChartBridge.get());
+	}
 
 	/**
 	 * If not id is passed from the user, a random one will be generated.
@@ -108,6 +128,7 @@ public class HighChart extends BoxComponent {
 		super();
 		this.setMonitorWindowResize(true);
 		this.chartJS = new HighChartJS((id != null) ? id : IDGen.generateID(ID_LENGTH));
+		this.chartJS.setRenderer(JSORenderer.get());
 		super.setId(chartJS.getId() + DIV_ID_SUFFIX);
 	}
 
@@ -147,8 +168,86 @@ public class HighChart extends BoxComponent {
 	protected final void onShow() {
 		super.onShow();
 		if (this.chartJS != null) {
-			this.chartJS.doResize();
+			ResizeScheduler.get().schedule(this.chartJS, 0);
+		}
+		if (this.lazyRender) {
+			LazyRenderer.get().checkSoon();
+		}
+	}
+
+	/**
+	 * A chart detached from the page (e.g. its panel has been closed)
+	 * is destroyed, releasing its resources inside the browser.
+	 */
+	@Override
+	protected final void onDetach() {
+		super.onDetach();
+		RenderStats.get().untrack(this.chartJS);
+		if (this.zoomLoader != null) {
+			this.zoomLoader.unwatch();
+		}
+		LazyRenderer.get().unwatch(this);
+		RenderBatch.get().remove(this.chartJS);
+		ResizeScheduler.get().cancel(this.chartJS);
+		this.chartJS.destroy();
+	}
+
+	/**
+	 * A chart attached again to the page after being detached
+	 * is rendered again (in lazy mode once visible).
+	 */
+	@Override
+	protected final void onAttach() {
+		RenderStats.get().track(this.chartJS, this);
+		super.onAttach();
+		if (this.zoomLoader != null) {
+			this.zoomLoader.watch();
+		}
+		if (this.lazyRender) {
+			LazyRenderer.get().watch(this);
+		} else if (this.isRendered() && !this.chartJS.isRendered()) {
+			RenderBatch.get().add(this.chartJS);
+		}
+	}
+
+	/**
+	 * In lazy mode the chart is generated and rendered only once it is
+	 * visible (or about to be, e.g. while scrolling the page) instead of
+	 * when the widget is rendered, so that charts inside inactive tabs or
+	 * collapsed panels do not slow down the loading of the page.
+	 * Must be set before rendering the widget.
+	 * @param value true to enable the lazy mode (default false).
+	 */
+	public final void setLazyRender(final boolean value) {
+		this.lazyRender = value;
+	}
+
+	/**
+	 * In lazy mode, destroys the chart when it goes far away from the
+	 * viewport (or it is hidden) and renders it again when it comes back,
+	 * so that the memory used by the page does not grow with the
+	 * number of charts.
+	 * @param value true to dehydrate the charts out of view (default false).
+	 */
+	public final void setDehydrateOffscreen(final boolean value) {
+		this.dehydrate = value;
+	}
+
+	/*
+	 * Invoked by the LazyRenderer with the distance of the chart from the
+	 * viewport (-1 if not displayed).
+	 * Returns true if the chart must be still watched.
+	 */
+	final boolean updateVisibility(final double distance) {
+		if (!this.chartJS.isRendered()) {
+			if (distance >= 0 && distance <= RENDER_DISTANCE) {
+				RenderBatch.get().add(this.chartJS);
+			}
+		} else if (this.dehydrate && (distance < 0 || distance > DEHYDRATE_DISTANCE)) {
+			ResizeScheduler.get().cancel(this.chartJS);
+			this.chartJS.destroy();
 		}
+		return this.dehydrate || !this.chartJS.isRendered();
 	}
 
 	@Override
@@ -158,14 +257,31 @@ public class HighChart extends BoxComponent {
 		setElement(el, parent, index);
 		super.onRender(parent, index);
 		this.chartJS.setDivId(this.getId());
-		this.chartJS.doRender();
+		// the chart fills its container
+		this.chartJS.setPlotWidth(parent.getOffsetWidth());
+		if (!this.lazyRender) {
+			// rendered together with the other charts created in this event
+			RenderBatch.get().add(this.chartJS);
+		}
+	}
+
+	/**
+	 * By default the options of the chart are built directly as javascript
+	 * objects (see {@link JSORenderer}).
+	 * If disabled the script of the chart is generated and evaluated
+	 * inside the container (i.e. the original behaviour).
+	 * @param value true to build the options as objects.
+	 */
+	public final void setObjectRendering(final boolean value) {
+		this.chartJS.setRenderer(value ? JSORenderer.get() : ScriptRenderer.get());
 	}
 
 	/**
 	 * The delay to wait before applying the auto resize to the chart.
-	 * It is suggested to use a value greater than 100 (also 1000 is suggested)
-	 * since the resize must be applied only after it has been handled by parent
-	 * gxt components.
+	 * The resize must be applied only after it has been handled by parent
+	 * gxt components. Further requests received inside the delay postpone
+	 * the resize, so that it is applied only once (e.g. while dragging
+	 * the window). Default 100.
 	 * @param mills
 	 */
 	public final void setResizeDelay(final int mills) {
@@ -178,6 +294,7 @@ public class HighChart extends BoxComponent {
 	@Override
 	protected final void onResize(final int width, final int height) {
 		//super.onResize(width, height);
+		this.chartJS.setPlotWidth(width);
 		if (this.autoResize && !resizeOnWindow) {
 			this.applyResize();
 		}
@@ -204,15 +321,9 @@ public class HighChart extends BoxComponent {
 	}
 
 	private void applyResize() {
-		// delayed refresh of chart
+		// delayed refresh of chart (shared by all the charts)
 		if (this.chartJS != null) {
-			Timer timer = new Timer() {
-				public void run() {
-					chartJS.doResize();
-				}
-			};
-			// Execute the timer to expire 2 seconds in the future
-			timer.schedule(this.resizeDelay);
+			ResizeScheduler.get().schedule(this.chartJS, this.resizeDelay);
 		}
 	}
 
@@ -220,6 +331,66 @@ public class HighChart extends BoxComponent {
 		this.chartJS.addSeries(series);
 	}
 
+	/**
+	 * Appends a point to a series without rendering again the whole chart.
+	 * @see HighChartJS#addPoint(SeriesType, SeriesDataEntry, boolean)
+	 */
+	public final void addPoint(final SeriesType series, final SeriesDataEntry point, final boolean shift) {
+		this.chartJS.addPoint(series, point, shift);
+	}
+
+	/**
+	 * Appends a batch of points to a series redrawing the chart only once.
+	 * @see HighChartJS#addPoints(SeriesType, List, boolean)
+	 */
+	public final void addPoints(final SeriesType series, final List<SeriesDataEntry> points, final boolean shift) {
+		this.chartJS.addPoints(series, points, shift);
+	}
+
+	/**
+	 * Replaces all the points of a series.
+	 * @see HighChartJS#setData(SeriesType, List)
+	 */
+	public final void setData(final SeriesType series, final List<SeriesDataEntry> points) {
+		this.chartJS.setData(series, points);
+	}
+
+	/**
+	 * @see HighChartJS#updatePoint(SeriesType, int, SeriesDataEntry)
+	 */
+	public final void updatePoint(final SeriesType series, final int pointIndex, final SeriesDataEntry point) {
+		this.chartJS.updatePoint(series, pointIndex, point);
+	}
+
+	/**
+	 * Loads the detail of a series each time the user zooms the chart
+	 * (see {@link AvailableSectionOptions#SEC_CHART_ZOOM}), replacing the points shown
+	 * by the series with the ones of the visible range at the resolution
+	 * of the plot. The series shows again its own points (e.g. a small
+	 * overview) when the zoom is reset.
+	 * @param series a series already added to this chart.
+	 * @param provider null to stop loading the detail of the series.
+	 */
+	public final void setZoomDataProvider(final SeriesType series, final ZoomDataProvider provider) {
+		if (this.zoomLoader == null) {
+			this.zoomLoader = new ZoomLoader(this.chartJS);
+			if (this.isAttached()) {
+				this.zoomLoader.watch();
+			}
+		}
+		this.zoomLoader.setProvider(series, provider);
+	}
+
+	/**
+	 * @see HighChartJS#removeSeries(SeriesType)
+	 */
+	public final void removeSeries(final SeriesType series) {
+		if (this.zoomLoader != null) {
+			this.zoomLoader.setProvider(series, null);
+		}
+		this.chartJS.removeSeries(series);
+	}
+
 	public final void setAutoResize(final boolean value) {
 		this.autoResize = value;
 	}
@@ -228,6 +399,70 @@ public class HighChart extends BoxComponent {
 		return this.chartJS.getSection(key);
 	}
 
+	/**
+	 * Brings the chart to the state of another one, applying only the
+	 * differences if rendered (see {@link HighChartJS#update(HighChartJS)}).
+	 */
+	public final UpdatePlan update(final HighChartJS state) {
+		return this.chartJS.update(state);
+	}
+
+	/**
+	 * Uses the sections of a template shared with other charts
+	 * (see {@link ChartTemplate}). The sections of this chart having
+	 * options replace those of the template.
+	 */
+	public final void setTemplate(final ChartTemplate template) {
+		this.chartJS.setTemplate(template);
+	}
+
+	/**
+	 * Notifies the listener with the metrics of each rendering
+	 * and resize of this chart.
+	 */
+	public final void addRenderListener(final RenderListener listener) {
+		if (listener == null) {
+			return;
+		}
+		if (this.renderListeners == null) {
+			this.renderListeners = new Vector<RenderListener>();
+		}
+		this.renderListeners.add(listener);
+	}
+
+	public final void removeRenderListener(final RenderListener listener) {
+		if (this.renderListeners != null) {
+			this.renderListeners.remove(listener);
+		}
+	}
+
+	/**
+	 * @return the metrics of the last rendering, null if not rendered yet.
+	 */
+	public final RenderMetrics getRenderMetrics() {
+		return this.renderMetrics;
+	}
+
+	/*
+	 * Invoked by the RenderStats.
+	 */
+	final void fireRendered(final RenderMetrics metrics) {
+		this.renderMetrics = metrics;
+		if (this.renderListeners != null) {
+			for (RenderListener listener : this.renderListeners) {
+				listener.onRendered(this, metrics);
+			}
+		}
+	}
+
+	final void fireResized() {
+		if (this.renderListeners != null) {
+			for (RenderListener listener : this.renderListeners) {
+				listener.onResized(this, this.renderMetrics);
+			}
+		}
+	}
+
 	public final void setWidthOffset(final int widthOffset) {
 		this.chartJS.setWidthOffset(widthOffset);
 	}
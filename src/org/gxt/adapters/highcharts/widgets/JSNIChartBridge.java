@@ -0,0 +1,94 @@
+/****************************************************************************
+ *  This software is part of the HighchartsJS adapters for Ext GWT.
+ ****************************************************************************
+ * This library is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this library.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ ****************************************************************************
+ * Filename: JSNIChartBridge.java
+ ****************************************************************************
+ * @author <a href="mailto:daniele.strollo@gmail.com">Daniele Strollo</a>
+ ***************************************************************************/
+
+package org.gxt.adapters.highcharts.widgets;
+
+import org.gxt.adapters.highcharts.codegen.types.ChartBridge;
+
+/**
+ * The bridge towards the functions of gxt-adapter.js used by the
+ * charts on the client.
+ * @author Daniele Strollo
+ */
+public final class JSNIChartBridge implements ChartBridge {
+	private static final JSNIChartBridge INSTANCE = new JSNIChartBridge();
+
+	private JSNIChartBridge() {
+	}
+
+	/**
+	 * The bridge is stateless so a single instance is shared by all charts.
+	 */
+	public static JSNIChartBridge get() {
+		return INSTANCE;
+	}
+
+	public native void injectJS(final String divID, final String jsCode) /*-{
+		var theContainer = $doc.getElementById(divID);
+		if (theContainer != null && jsCode != null) {
+			theContainer.innerHTML = jsCode;
+
+			var x = theContainer.getElementsByTagName("script");
+			for(var i=0; i < x.length; i++) {
+				eval(x[i].text);
+			}
+		} else {
+			alert('div: ' + divID + ' not found ');
+		}
+	}-*/;
+
+	public native void destroyChart(final String chartId) /*-{
+		$wnd.destroyChart(chartId);
+	}-*/;
+
+	public native void resizeChart(final String chartId, final int widthOffset, final int heightOffset) /*-{
+		$wnd.resizeChart(chartId, widthOffset, heightOffset);
+	}-*/;
+
+	public native void setUseParent(final String chartId, final boolean useParent) /*-{
+		$wnd.setUseParent(chartId, useParent);
+	}-*/;
+
+	public native boolean addPoints(final String chartId, final int seriesIndex, final String pointsJS, final int shiftFrom) /*-{
+		return $wnd.addChartPoints(chartId, seriesIndex, eval(pointsJS), true, shiftFrom) == true;
+	}-*/;
+
+	public native boolean setData(final String chartId, final int seriesIndex, final String dataJS) /*-{
+		return $wnd.setChartData(chartId, seriesIndex, eval(dataJS), true) == true;
+	}-*/;
+
+	public native boolean updatePoint(final String chartId, final int seriesIndex, final int pointIndex, final String pointJS) /*-{
+		return $wnd.updateChartPoint(chartId, seriesIndex, pointIndex, eval('(' + pointJS + ')'), true) == true;
+	}-*/;
+
+	public native boolean removeSeries(final String chartId, final int seriesIndex) /*-{
+		return $wnd.removeChartSeries(chartId, seriesIndex, true) == true;
+	}-*/;
+
+	public native boolean applyUpdates(final String chartId, final String stepsJS) /*-{
+		return $wnd.applyChartUpdates(chartId, eval(stepsJS)) == true;
+	}-*/;
+
+	public native int getRegisteredChartsCount() /*-{
+		return $wnd.getRegisteredChartsCount();
+	}-*/;
+}
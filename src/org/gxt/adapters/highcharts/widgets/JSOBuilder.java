@@ -0,0 +1,157 @@
+/****************************************************************************
+ *  This software is part of the HighchartsJS adapters for Ext GWT.
+ ****************************************************************************
+ * This library is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this library.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ ****************************************************************************
+ * Filename: JSOBuilder.java
+ ****************************************************************************
+ * @author <a href="mailto:daniele.strollo@gmail.com">Daniele Strollo</a>
+ ***************************************************************************/
+
+package org.gxt.adapters.highcharts.widgets;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.gxt.adapters.highcharts.codegen.utils.JSObjectBuilder;
+import com.google.gwt.core.client.JavaScriptObject;
+
+/**
+ * Builds directly the javascript objects described by the chart,
+ * so that no source code must be parsed and evaluated by the browser.
+ * <p>
+ * <b>Notice:</b> the raw options of the sections are free javascript code,
+ * so they are the only part that is still evaluated (i.e. only the
+ * raw fragment and not the whole chart).
+ * </p>
+ * @author Daniele Strollo
+ */
+public final class JSOBuilder implements JSObjectBuilder {
+	private List<JavaScriptObject> stack = new ArrayList<JavaScriptObject>();
+	private JavaScriptObject result = null;
+
+	/**
+	 * @return the last completed root object.
+	 */
+	public JavaScriptObject getResult() {
+		return this.result;
+	}
+
+	public void beginObject(final String key) {
+		this.open(key, JavaScriptObject.createObject());
+	}
+
+	public void endObject() {
+		this.close();
+	}
+
+	public void beginArray(final String key) {
+		this.open(key, JavaScriptObject.createArray());
+	}
+
+	public void endArray() {
+		this.close();
+	}
+
+	public void addString(final String key, final String value) {
+		setString(this.current(), key, value);
+	}
+
+	public void addNumber(final String key, final double value) {
+		setNumber(this.current(), key, value);
+	}
+
+	public void addBoolean(final String key, final boolean value) {
+		setBoolean(this.current(), key, value);
+	}
+
+	public void addNull(final String key) {
+		setNull(this.current(), key);
+	}
+
+	public void addRaw(final String code) {
+		mergeRaw(this.current(), code);
+	}
+
+	private JavaScriptObject current() {
+		return this.stack.get(this.stack.size() - 1);
+	}
+
+	private void open(final String key, final JavaScriptObject obj) {
+		if (this.stack.size() > 0) {
+			setObject(this.current(), key, obj);
+		}
+		this.stack.add(obj);
+	}
+
+	private void close() {
+		JavaScriptObject obj = this.stack.remove(this.stack.size() - 1);
+		if (this.stack.size() == 0) {
+			this.result = obj;
+		}
+	}
+
+	/*
+	 * If key is null the value is appended to the target array.
+	 */
+	private static native void setObject(final JavaScriptObject target, final String key, final JavaScriptObject value) /*-{
+		if (key == null) {
+			target.push(value);
+		} else {
+			target[key] = value;
+		}
+	}-*/;
+
+	private static native void setString(final JavaScriptObject target, final String key, final String value) /*-{
+		if (key == null) {
+			target.push(value);
+		} else {
+			target[key] = value;
+		}
+	}-*/;
+
+	private static native void setNumber(final JavaScriptObject target, final String key, final double value) /*-{
+		if (key == null) {
+			target.push(value);
+		} else {
+			target[key] = value;
+		}
+	}-*/;
+
+	private static native void setBoolean(final JavaScriptObject target, final String key, final boolean value) /*-{
+		if (key == null) {
+			target.push(value);
+		} else {
+			target[key] = value;
+		}
+	}-*/;
+
+	private static native void setNull(final JavaScriptObject target, final String key) /*-{
+		if (key == null) {
+			target.push(null);
+		} else {
+			target[key] = null;
+		}
+	}-*/;
+
+	private static native void mergeRaw(final JavaScriptObject target, final String code) /*-{
+		var raw = eval('({' + code + '})');
+		for (var key in raw) {
+			if (raw.hasOwnProperty(key)) {
+				target[key] = raw[key];
+			}
+		}
+	}-*/;
+}
@@ -0,0 +1,83 @@
+/****************************************************************************
+ *  This software is part of the HighchartsJS adapters for Ext GWT.
+ ****************************************************************************
+ * This library is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this library.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ ****************************************************************************
+ * Filename: JSORenderer.java
+ ****************************************************************************
+ * @author <a href="mailto:daniele.strollo@gmail.com">Daniele Strollo</a>
+ ***************************************************************************/
+
+package org.gxt.adapters.highcharts.widgets;
+
+import org.gxt.adapters.highcharts.codegen.types.ChartRenderer;
+import org.gxt.adapters.highcharts.codegen.types.HighChartJS;
+import com.google.gwt.core.client.JavaScriptObject;
+
+/**
+ * Renders the charts by building their options as javascript objects
+ * (see {@link JSOBuilder}) and passing them directly to the
+ * highchart constructor, instead of generating and evaluating a script.
+ * @author Daniele Strollo
+ */
+public final class JSORenderer implements ChartRenderer {
+	private static final JSORenderer INSTANCE = new JSORenderer();
+
+	private JSORenderer() {
+	}
+
+	/**
+	 * The renderer is stateless so a single instance is shared by all charts.
+	 */
+	public static JSORenderer get() {
+		return INSTANCE;
+	}
+
+	/**
+	 * The rendering is measured (see {@link RenderStats}).
+	 */
+	public void render(final HighChartJS chart) {
+		RenderBatch.get().renderNow(chart, this);
+	}
+
+	/**
+	 * The options object of the chart.
+	 */
+	JavaScriptObject buildOptions(final HighChartJS chart) {
+		JSOBuilder builder = new JSOBuilder();
+		chart.build(builder);
+		return builder.getResult();
+	}
+
+	/*
+	 * Attaches to the options the events for registering the chart
+	 * (the same generated in the script by SectionChart) and creates it.
+	 */
+	native void createChart(final JavaScriptObject options, final String chartName) /*-{
+		var divID = options.chart.renderTo;
+		if ($doc.getElementById(divID) == null) {
+			alert('div: ' + divID + ' not found ');
+			return;
+		}
+		if (options.chart.events == null) {
+			options.chart.events = {};
+		}
+		options.chart.events.load = function registerMe() {
+			this.id = chartName;
+			$wnd.registerChart(this, true);
+		};
+		new $wnd.Highcharts.Chart(options);
+	}-*/;
+}
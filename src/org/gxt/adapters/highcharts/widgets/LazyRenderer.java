@@ -0,0 +1,133 @@
+/****************************************************************************
+ *  This software is part of the HighchartsJS adapters for Ext GWT.
+ ****************************************************************************
+ * This library is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this library.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ ****************************************************************************
+ * Filename: LazyRenderer.java
+ ****************************************************************************
+ * @author <a href="mailto:daniele.strollo@gmail.com">Daniele Strollo</a>
+ ***************************************************************************/
+
+package org.gxt.adapters.highcharts.widgets;
+
+import java.util.List;
+import java.util.Vector;
+
+import com.google.gwt.core.client.Scheduler;
+import com.google.gwt.core.client.Scheduler.ScheduledCommand;
+import com.google.gwt.user.client.Element;
+import com.google.gwt.user.client.Timer;
+
+/**
+ * Watches the charts in lazy render mode (see
+ * {@link HighChart#setLazyRender(boolean)}) and renders them once they
+ * get close to the viewport of the browser.
+ * The position of the charts is periodically checked while at least
+ * one chart is watched: all the positions are read before rendering
+ * any chart, so that the layout is computed only once per check.
+ * @author Daniele Strollo
+ */
+final class LazyRenderer {
+	private static final LazyRenderer INSTANCE = new LazyRenderer();
+	// the millis between two checks of the positions
+	private static final int CHECK_DELAY = 200;
+	private List<HighChart> charts = new Vector<HighChart>();
+	private boolean running = false;
+	private boolean checkScheduled = false;
+	private Timer timer = new Timer() {
+		public void run() {
+			check();
+		}
+	};
+	private ScheduledCommand checkCommand = new ScheduledCommand() {
+		public void execute() {
+			checkScheduled = false;
+			check();
+		}
+	};
+
+	private LazyRenderer() {
+	}
+
+	static LazyRenderer get() {
+		return INSTANCE;
+	}
+
+	/**
+	 * Starts watching the position of a chart.
+	 */
+	void watch(final HighChart chart) {
+		if (!this.charts.contains(chart)) {
+			this.charts.add(chart);
+		}
+		if (!this.running) {
+			this.running = true;
+			this.timer.scheduleRepeating(CHECK_DELAY);
+		}
+		this.checkSoon();
+	}
+
+	void unwatch(final HighChart chart) {
+		this.charts.remove(chart);
+		if (this.charts.isEmpty() && this.running) {
+			this.running = false;
+			this.timer.cancel();
+		}
+	}
+
+	/**
+	 * Checks the positions once the current event has been handled
+	 * (e.g. after the layout of a panel just shown).
+	 */
+	void checkSoon() {
+		if (!this.checkScheduled) {
+			this.checkScheduled = true;
+			Scheduler.get().scheduleDeferred(this.checkCommand);
+		}
+	}
+
+	private void check() {
+		// the charts could stop being watched during the check
+		HighChart[] watched = this.charts.toArray(new HighChart[this.charts.size()]);
+		double[] distances = new double[watched.length];
+		for (int i = 0; i < watched.length; i++) {
+			distances[i] = getViewportDistance(watched[i].getElement());
+		}
+		for (int i = 0; i < watched.length; i++) {
+			if (!watched[i].updateVisibility(distances[i])) {
+				this.unwatch(watched[i]);
+			}
+		}
+		// the charts become visible together
+		RenderBatch.get().flush();
+	}
+
+	/*
+	 * The distance of the element from the viewport expressed in number
+	 * of viewport heights (0 if visible, -1 if not displayed at all,
+	 * e.g. inside a collapsed panel or an inactive tab).
+	 */
+	private static native double getViewportDistance(final Element el) /*-{
+		var rect = el.getBoundingClientRect();
+		if (rect.right - rect.left <= 0 || rect.bottom - rect.top <= 0) {
+			return -1;
+		}
+		var height = $wnd.innerHeight || $doc.documentElement.clientHeight;
+		var width = $wnd.innerWidth || $doc.documentElement.clientWidth;
+		var dy = Math.max(0, -rect.bottom, rect.top - height);
+		var dx = Math.max(0, -rect.right, rect.left - width);
+		return Math.max(dx, dy) / height;
+	}-*/;
+}
@@ -0,0 +1,79 @@
+/****************************************************************************
+ *  This software is part of the HighchartsJS adapters for Ext GWT.
+ ****************************************************************************
+ * This library is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this library.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ ****************************************************************************
+ * Filename: PyramidDataProvider.java
+ ****************************************************************************
+ * @author <a href="mailto:daniele.strollo@gmail.com">Daniele Strollo</a>
+ ***************************************************************************/
+
+package org.gxt.adapters.highcharts.widgets;
+
+import org.gxt.adapters.highcharts.codegen.types.DownsamplingType;
+import org.gxt.adapters.highcharts.codegen.types.SeriesData;
+import org.gxt.adapters.highcharts.codegen.types.SeriesPyramid;
+import org.gxt.adapters.highcharts.codegen.types.SeriesType;
+import com.google.gwt.user.client.rpc.AsyncCallback;
+
+/**
+ * Answers the zoom requests from a {@link SeriesPyramid} kept on the
+ * client (e.g. filled by a live feed), at the resolution of the plot.
+ * <pre>
+ * SeriesPyramid pyramid = new SeriesPyramid(detail);
+ * hc.setZoomDataProvider(overview, new PyramidDataProvider(pyramid, DownsamplingType.MIN_MAX));
+ * </pre>
+ * @author Daniele Strollo
+ */
+public class PyramidDataProvider implements ZoomDataProvider {
+	private SeriesPyramid pyramid = null;
+	private DownsamplingType type = null;
+
+	/**
+	 * @param pyramid the points of the series at full resolution.
+	 * @param type {@link DownsamplingType#MIN_MAX} or {@link DownsamplingType#AVERAGE}.
+	 */
+	public PyramidDataProvider(final SeriesPyramid pyramid, final DownsamplingType type) {
+		this.pyramid = pyramid;
+		this.type = type;
+	}
+
+	public void load(final SeriesType series, final double from, final double to, final int maxPoints,
+			final AsyncCallback<SeriesData> callback) {
+		try {
+			callback.onSuccess(this.pyramid.query(this.getXBefore(from), this.getXAfter(to), maxPoints, this.type));
+		} catch (RuntimeException e) {
+			callback.onFailure(e);
+		}
+	}
+
+	/*
+	 * The points next to the visible range are included as well,
+	 * so that the lines reach the borders of the plot.
+	 */
+	private double getXBefore(final double x) {
+		int index = this.pyramid.indexOf(x) - 1;
+		return (index >= 0) ? this.pyramid.getX(index) : x;
+	}
+
+	private double getXAfter(final double x) {
+		int index = this.pyramid.indexOf(x);
+		int size = this.pyramid.getData().size();
+		while (index < size && this.pyramid.getX(index) <= x) {
+			index++;
+		}
+		return (index < size) ? this.pyramid.getX(index) : x;
+	}
+}
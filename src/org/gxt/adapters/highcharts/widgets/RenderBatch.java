@@ -0,0 +1,205 @@
+/****************************************************************************
+ *  This software is part of the HighchartsJS adapters for Ext GWT.
+ ****************************************************************************
+ * This library is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this library.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ ****************************************************************************
+ * Filename: RenderBatch.java
+ ****************************************************************************
+ * @author <a href="mailto:daniele.strollo@gmail.com">Daniele Strollo</a>
+ ***************************************************************************/
+
+package org.gxt.adapters.highcharts.widgets;
+
+import java.util.List;
+import java.util.Vector;
+
+import org.gxt.adapters.highcharts.codegen.types.ChartRenderer;
+import org.gxt.adapters.highcharts.codegen.types.HighChartJS;
+import com.google.gwt.core.client.Duration;
+import com.google.gwt.core.client.JavaScriptObject;
+import com.google.gwt.core.client.Scheduler;
+import com.google.gwt.core.client.Scheduler.ScheduledCommand;
+
+/**
+ * Collects the charts to render during the same turn of the event loop
+ * (e.g. while a dashboard is built) and renders them all together
+ * at its end:
+ * <ol>
+ * <li>the code (or the options objects) of all the charts is generated;
+ * <li>the charts are injected one after the other;
+ * <li>all the charts are resized together after a single layout read
+ * (see {@link ResizeScheduler}).
+ * </ol>
+ * Only the resizes are batched: each chart is still created on its own
+ * (its script evaluated inside the container, or its constructor invoked),
+ * and Highcharts reads the size of the container while creating it,
+ * so the injection still costs a layout per chart. The batch saves the
+ * reads and writes of the resizes interleaved with the renderings.
+ * The time of each phase is measured for every chart and, at the next
+ * animation frame, notified through the {@link RenderStats}.
+ * The same measures are taken for the charts rendered again outside a
+ * batch (e.g. after an update that cannot be applied in place), through
+ * the renderers of the widgets ({@link JSORenderer} and {@link ScriptRenderer}).
+ * @author Daniele Strollo
+ */
+public final class RenderBatch {
+	private static final RenderBatch INSTANCE = new RenderBatch();
+	private List<HighChartJS> pending = new Vector<HighChartJS>();
+	private boolean scheduled = false;
+	private ScheduledCommand flushCommand = new ScheduledCommand() {
+		public void execute() {
+			scheduled = false;
+			flush();
+		}
+	};
+
+	/*
+	 * Injects the code already generated for a chart.
+	 */
+	private static final class PreparedRenderer implements ChartRenderer {
+		private JavaScriptObject options = null;
+		private String script = null;
+
+		PreparedRenderer(final JavaScriptObject options) {
+			this.options = options;
+		}
+
+		PreparedRenderer(final String script) {
+			this.script = script;
+		}
+
+		public void render(final HighChartJS chart) {
+			if (this.options != null) {
+				JSORenderer.get().createChart(this.options, chart.getJSChartName());
+			} else {
+				HighChartJS.injectJS(chart.getDivId(), this.script);
+			}
+		}
+	}
+
+	private RenderBatch() {
+	}
+
+	public static RenderBatch get() {
+		return INSTANCE;
+	}
+
+	/**
+	 * Adds a chart to the ones to render at the end of the current event.
+	 * @param chart a chart whose container is already in the page.
+	 */
+	public void add(final HighChartJS chart) {
+		if (chart == null || this.pending.contains(chart)) {
+			return;
+		}
+		this.pending.add(chart);
+		if (!this.scheduled) {
+			this.scheduled = true;
+			Scheduler.get().scheduleFinally(this.flushCommand);
+		}
+	}
+
+	/**
+	 * Removes a chart not rendered yet (e.g. its container has been
+	 * removed from the page).
+	 */
+	public void remove(final HighChartJS chart) {
+		this.pending.remove(chart);
+	}
+
+	/**
+	 * Renders immediately all the pending charts.
+	 */
+	public void flush() {
+		if (this.pending.isEmpty()) {
+			return;
+		}
+		HighChartJS[] charts = this.pending.toArray(new HighChartJS[this.pending.size()]);
+		this.pending.clear();
+
+		// 1 - the code generation
+		ChartRenderer[] prepared = new ChartRenderer[charts.length];
+		RenderMetrics[] metrics = new RenderMetrics[charts.length];
+		for (int i = 0; i < charts.length; i++) {
+			metrics[i] = new RenderMetrics(charts[i].getId(), Duration.currentTimeMillis());
+			prepared[i] = this.prepare(charts[i], charts[i].getRenderer(), metrics[i]);
+		}
+
+		// 2 - the injection
+		for (int i = 0; i < charts.length; i++) {
+			double start = Duration.currentTimeMillis();
+			charts[i].render(prepared[i]);
+			metrics[i].setInjectMillis(Duration.currentTimeMillis() - start);
+		}
+		this.requestPaint(charts, metrics);
+
+		// 3 - the resize (all the sizes read at once)
+		for (HighChartJS chart : charts) {
+			ResizeScheduler.get().schedule(chart, 0);
+		}
+	}
+
+	/*
+	 * Renders a single chart measuring it as the batched ones.
+	 * Invoked by the renderers of the widgets from HighChartJS#render(ChartRenderer).
+	 */
+	void renderNow(final HighChartJS chart, final ChartRenderer renderer) {
+		RenderMetrics metrics = new RenderMetrics(chart.getId(), Duration.currentTimeMillis());
+		ChartRenderer prepared = this.prepare(chart, renderer, metrics);
+		double start = Duration.currentTimeMillis();
+		prepared.render(chart);
+		metrics.setInjectMillis(Duration.currentTimeMillis() - start);
+		this.requestPaint(new HighChartJS[] {chart}, new RenderMetrics[] {metrics});
+	}
+
+	/*
+	 * Generates the code of a chart (or builds its options objects).
+	 */
+	private ChartRenderer prepare(final HighChartJS chart, final ChartRenderer renderer, final RenderMetrics metrics) {
+		double start = Duration.currentTimeMillis();
+		ChartRenderer retval;
+		int length = -1;
+		if (renderer == JSORenderer.get()) {
+			retval = new PreparedRenderer(JSORenderer.get().buildOptions(chart));
+		} else if (renderer == null || renderer == ScriptRenderer.get()) {
+			String script = chart.getJS();
+			length = script.length();
+			retval = new PreparedRenderer(script);
+		} else {
+			// custom renderers generate their own code
+			retval = renderer;
+		}
+		metrics.setCodegen(Duration.currentTimeMillis() - start, length, chart.getRenderedPointsCount());
+		return retval;
+	}
+
+	/*
+	 * Invoked at the first animation frame after the injection.
+	 */
+	private void painted(final HighChartJS[] charts, final RenderMetrics[] metrics) {
+		double now = Duration.currentTimeMillis();
+		for (int i = 0; i < charts.length; i++) {
+			metrics[i].setFirstPaintMillis(now - metrics[i].getStart());
+			RenderStats.get().rendered(charts[i], metrics[i]);
+		}
+	}
+
+	private native void requestPaint(final HighChartJS[] charts, final RenderMetrics[] metrics) /*-{
+		var self = this;
+		$wnd.requestChartFrame($entry(function() {
+			self.@org.gxt.adapters.highcharts.widgets.RenderBatch::painted([Lorg/gxt/adapters/highcharts/codegen/types/HighChartJS;[Lorg/gxt/adapters/highcharts/widgets/RenderMetrics;)(charts, metrics);
+		}));
+	}-*/;
+}
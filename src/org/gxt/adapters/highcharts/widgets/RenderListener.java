@@ -0,0 +1,44 @@
+/****************************************************************************
+ *  This software is part of the HighchartsJS adapters for Ext GWT.
+ ****************************************************************************
+ * This library is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this library.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ ****************************************************************************
+ * Filename: RenderListener.java
+ ****************************************************************************
+ * @author <a href="mailto:daniele.strollo@gmail.com">Daniele Strollo</a>
+ ***************************************************************************/
+
+package org.gxt.adapters.highcharts.widgets;
+
+/**
+ * Notified with the metrics of the charts rendered and resized
+ * (see {@link HighChart#addRenderListener(RenderListener)} for a single
+ * chart and {@link RenderStats#addListener(RenderListener)} for all).
+ * @author Daniele Strollo
+ */
+public interface RenderListener {
+	/**
+	 * Invoked at the first animation frame after the chart
+	 * has been injected in the page.
+	 * @param chart null for charts not created through a widget.
+	 */
+	void onRendered(HighChart chart, RenderMetrics metrics);
+
+	/**
+	 * Invoked after each resize of the chart
+	 * (only for the charts created through a widget).
+	 */
+	void onResized(HighChart chart, RenderMetrics metrics);
+}
@@ -0,0 +1,136 @@
+/****************************************************************************
+ *  This software is part of the HighchartsJS adapters for Ext GWT.
+ ****************************************************************************
+ * This library is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this library.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ ****************************************************************************
+ * Filename: RenderMetrics.java
+ ****************************************************************************
+ * @author <a href="mailto:daniele.strollo@gmail.com">Daniele Strollo</a>
+ ***************************************************************************/
+
+package org.gxt.adapters.highcharts.widgets;
+
+/**
+ * The timings and sizes measured while rendering a chart
+ * (see {@link RenderListener}).
+ * All the times are in milliseconds.
+ * @author Daniele Strollo
+ */
+public final class RenderMetrics {
+	private String chartId = null;
+	// the moment the rendering started
+	private double start = 0;
+	private double codegenMillis = 0;
+	private int jsLength = -1;
+	private int pointsCount = 0;
+	private double injectMillis = 0;
+	private double firstPaintMillis = -1;
+	private int resizeCount = 0;
+	private double resizeMillis = 0;
+
+	RenderMetrics(final String chartId, final double start) {
+		this.chartId = chartId;
+		this.start = start;
+	}
+
+	public String getChartId() {
+		return this.chartId;
+	}
+
+	/**
+	 * The time spent generating the code (or building the options objects)
+	 * of the chart.
+	 */
+	public double getCodegenMillis() {
+		return this.codegenMillis;
+	}
+
+	/**
+	 * The number of chars of the generated script,
+	 * -1 if the options have been built as objects (see {@link JSORenderer}).
+	 */
+	public int getJSLength() {
+		return this.jsLength;
+	}
+
+	/**
+	 * The number of points rendered (i.e. after downsampling).
+	 */
+	public int getPointsCount() {
+		return this.pointsCount;
+	}
+
+	/**
+	 * The time spent injecting the chart in the page: the evaluation of
+	 * the script (or the creation from the options) and the drawing
+	 * done synchronously by highcharts.
+	 */
+	public double getInjectMillis() {
+		return this.injectMillis;
+	}
+
+	/**
+	 * The time from the start of the rendering to the first animation
+	 * frame after the injection (-1 if not reached yet).
+	 */
+	public double getFirstPaintMillis() {
+		return this.firstPaintMillis;
+	}
+
+	/**
+	 * The number of resizes applied since the rendering.
+	 */
+	public int getResizeCount() {
+		return this.resizeCount;
+	}
+
+	/**
+	 * The overall time of the resizes since the rendering.
+	 * The charts resized together share the time of their batch.
+	 */
+	public double getResizeMillis() {
+		return this.resizeMillis;
+	}
+
+	double getStart() {
+		return this.start;
+	}
+
+	void setCodegen(final double millis, final int length, final int points) {
+		this.codegenMillis = millis;
+		this.jsLength = length;
+		this.pointsCount = points;
+	}
+
+	void setInjectMillis(final double millis) {
+		this.injectMillis = millis;
+	}
+
+	void setFirstPaintMillis(final double millis) {
+		this.firstPaintMillis = millis;
+	}
+
+	void addResize(final double millis) {
+		this.resizeCount++;
+		this.resizeMillis += millis;
+	}
+
+	@Override
+	public String toString() {
+		return this.chartId + ": codegen " + this.codegenMillis + " ms, " + this.jsLength + " chars, "
+		+ this.pointsCount + " points, inject " + this.injectMillis + " ms, first paint "
+		+ this.firstPaintMillis + " ms, " + this.resizeCount + " resizes " + this.resizeMillis + " ms";
+	}
+}
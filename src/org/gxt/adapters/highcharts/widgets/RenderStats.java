@@ -0,0 +1,208 @@
+/****************************************************************************
+ *  This software is part of the HighchartsJS adapters for Ext GWT.
+ ****************************************************************************
+ * This library is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this library.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ ****************************************************************************
+ * Filename: RenderStats.java
+ ****************************************************************************
+ * @author <a href="mailto:daniele.strollo@gmail.com">Daniele Strollo</a>
+ ***************************************************************************/
+
+package org.gxt.adapters.highcharts.widgets;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Vector;
+
+import org.gxt.adapters.highcharts.codegen.types.HighChartJS;
+
+/**
+ * The metrics of all the charts rendered in the page
+ * (see {@link RenderMetrics}), aggregated for monitoring purposes.
+ * The listeners added here are notified for every chart, so they can
+ * be used to ship the single measures to a monitoring backend.
+ * <pre>
+ * RenderStats.get().addListener(new RenderListener() {
+ *   public void onRendered(HighChart chart, RenderMetrics metrics) {
+ *     monitor.send(metrics.toString());
+ *   }
+ *   public void onResized(HighChart chart, RenderMetrics metrics) {
+ *   }
+ * });
+ * </pre>
+ * @author Daniele Strollo
+ */
+public final class RenderStats {
+	private static final RenderStats INSTANCE = new RenderStats();
+	private List<RenderListener> listeners = new Vector<RenderListener>();
+	// the widgets of the charts in the page
+	private Map<HighChartJS, HighChart> widgets = new HashMap<HighChartJS, HighChart>();
+	private int renders = 0;
+	private double codegenMillis = 0;
+	private double jsLength = 0;
+	private double pointsCount = 0;
+	private double injectMillis = 0;
+	private double firstPaintMillis = 0;
+	private double maxFirstPaintMillis = 0;
+	private int resizes = 0;
+	private double resizeMillis = 0;
+
+	private RenderStats() {
+	}
+
+	public static RenderStats get() {
+		return INSTANCE;
+	}
+
+	public void addListener(final RenderListener listener) {
+		if (listener != null && !this.listeners.contains(listener)) {
+			this.listeners.add(listener);
+		}
+	}
+
+	public void removeListener(final RenderListener listener) {
+		this.listeners.remove(listener);
+	}
+
+	/**
+	 * The number of charts rendered.
+	 */
+	public int getRendersCount() {
+		return this.renders;
+	}
+
+	public double getCodegenMillis() {
+		return this.codegenMillis;
+	}
+
+	/**
+	 * The chars of all the scripts generated
+	 * (not counting the charts whose options are built as objects).
+	 */
+	public double getJSLength() {
+		return this.jsLength;
+	}
+
+	public double getPointsCount() {
+		return this.pointsCount;
+	}
+
+	public double getInjectMillis() {
+		return this.injectMillis;
+	}
+
+	public double getFirstPaintMillis() {
+		return this.firstPaintMillis;
+	}
+
+	/**
+	 * The slowest first paint of a single chart.
+	 */
+	public double getMaxFirstPaintMillis() {
+		return this.maxFirstPaintMillis;
+	}
+
+	/**
+	 * The number of resizes of single charts.
+	 */
+	public int getResizesCount() {
+		return this.resizes;
+	}
+
+	public double getResizeMillis() {
+		return this.resizeMillis;
+	}
+
+	/**
+	 * Clears the aggregated metrics (e.g. once shipped).
+	 */
+	public void reset() {
+		this.renders = 0;
+		this.codegenMillis = 0;
+		this.jsLength = 0;
+		this.pointsCount = 0;
+		this.injectMillis = 0;
+		this.firstPaintMillis = 0;
+		this.maxFirstPaintMillis = 0;
+		this.resizes = 0;
+		this.resizeMillis = 0;
+	}
+
+	@Override
+	public String toString() {
+		return this.renders + " renders: codegen " + this.codegenMillis + " ms, " + this.jsLength + " chars, "
+		+ this.pointsCount + " points, inject " + this.injectMillis + " ms, first paint "
+		+ this.firstPaintMillis + " ms (max " + this.maxFirstPaintMillis + " ms), "
+		+ this.resizes + " resizes " + this.resizeMillis + " ms";
+	}
+
+	/*
+	 * The widgets register their charts while attached to the page,
+	 * so that their listeners can be notified.
+	 */
+	void track(final HighChartJS chart, final HighChart widget) {
+		this.widgets.put(chart, widget);
+	}
+
+	void untrack(final HighChartJS chart) {
+		this.widgets.remove(chart);
+	}
+
+	/*
+	 * Invoked by the RenderBatch once the chart has been painted.
+	 */
+	void rendered(final HighChartJS chart, final RenderMetrics metrics) {
+		this.renders++;
+		this.codegenMillis += metrics.getCodegenMillis();
+		if (metrics.getJSLength() > 0) {
+			this.jsLength += metrics.getJSLength();
+		}
+		this.pointsCount += metrics.getPointsCount();
+		this.injectMillis += metrics.getInjectMillis();
+		this.firstPaintMillis += metrics.getFirstPaintMillis();
+		this.maxFirstPaintMillis = Math.max(this.maxFirstPaintMillis, metrics.getFirstPaintMillis());
+
+		HighChart widget = this.widgets.get(chart);
+		if (widget != null) {
+			widget.fireRendered(metrics);
+		}
+		for (RenderListener listener : this.listeners) {
+			listener.onRendered(widget, metrics);
+		}
+	}
+
+	/*
+	 * Invoked by the ResizeScheduler with the charts resized together
+	 * and the time of the whole batch.
+	 */
+	void resized(final HighChartJS[] charts, final double millis) {
+		this.resizes += charts.length;
+		this.resizeMillis += millis;
+		double share = millis / charts.length;
+		for (HighChartJS chart : charts) {
+			HighChart widget = this.widgets.get(chart);
+			RenderMetrics metrics = (widget != null) ? widget.getRenderMetrics() : null;
+			if (metrics == null) {
+				continue;
+			}
+			metrics.addResize(share);
+			widget.fireResized();
+			for (RenderListener listener : this.listeners) {
+				listener.onResized(widget, metrics);
+			}
+		}
+	}
+}
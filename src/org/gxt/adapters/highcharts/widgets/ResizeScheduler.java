@@ -0,0 +1,152 @@
+/****************************************************************************
+ *  This software is part of the HighchartsJS adapters for Ext GWT.
+ ****************************************************************************
+ * This library is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this library.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ ****************************************************************************
+ * Filename: ResizeScheduler.java
+ ****************************************************************************
+ * @author <a href="mailto:daniele.strollo@gmail.com">Daniele Strollo</a>
+ ***************************************************************************/
+
+package org.gxt.adapters.highcharts.widgets;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Vector;
+
+import org.gxt.adapters.highcharts.codegen.types.HighChartJS;
+import com.google.gwt.core.client.Duration;
+import com.google.gwt.core.client.JavaScriptObject;
+import com.google.gwt.core.client.JsArrayInteger;
+import com.google.gwt.core.client.JsArrayString;
+import com.google.gwt.user.client.Timer;
+
+/**
+ * Applies the resize of all the charts in the page.
+ * The requests are debounced for each chart (i.e. a new request
+ * postpones the pending one) and, once expired, the ones of all the
+ * charts are applied together at the next animation frame.
+ * Inside that pass the sizes of all the containers are read before
+ * resizing any chart, avoiding the layout thrashing of dashboards
+ * with many charts.
+ * The time of each pass is notified to the {@link RenderStats}.
+ * @author Daniele Strollo
+ */
+final class ResizeScheduler {
+	private static final ResizeScheduler INSTANCE = new ResizeScheduler();
+	// for each chart the moment (in millis) in which it must be resized
+	private Map<HighChartJS, Long> pending = new LinkedHashMap<HighChartJS, Long>();
+	// the moment in which the timer expires (0 if not scheduled)
+	private long nextRun = 0;
+	private Timer timer = new Timer() {
+		public void run() {
+			nextRun = 0;
+			flush();
+		}
+	};
+
+	private ResizeScheduler() {
+	}
+
+	static ResizeScheduler get() {
+		return INSTANCE;
+	}
+
+	/**
+	 * Requests the resize of a chart.
+	 * If a resize of the same chart is already pending it is postponed.
+	 * @param chart the chart to resize.
+	 * @param delay the millis to wait before applying the resize.
+	 */
+	void schedule(final HighChartJS chart, final int delay) {
+		long due = System.currentTimeMillis() + Math.max(delay, 0);
+		this.pending.put(chart, due);
+		if (this.nextRun == 0 || due < this.nextRun) {
+			this.scheduleTimer(due);
+		}
+	}
+
+	/**
+	 * Drops the pending resize of a chart (if any).
+	 */
+	void cancel(final HighChartJS chart) {
+		this.pending.remove(chart);
+	}
+
+	private void scheduleTimer(final long due) {
+		this.nextRun = due;
+		// the timer requires a positive delay
+		this.timer.schedule((int) Math.max(due - System.currentTimeMillis(), 1));
+	}
+
+	/*
+	 * Resizes together all the charts whose delay expired and
+	 * waits for the others.
+	 */
+	private void flush() {
+		long now = System.currentTimeMillis();
+		long next = 0;
+		List<HighChartJS> charts = new Vector<HighChartJS>();
+		JsArrayString ids = JavaScriptObject.createArray().cast();
+		JsArrayInteger widthOffsets = JavaScriptObject.createArray().cast();
+		JsArrayInteger heightOffsets = JavaScriptObject.createArray().cast();
+		Iterator<Entry<HighChartJS, Long>> it = this.pending.entrySet().iterator();
+		while (it.hasNext()) {
+			Entry<HighChartJS, Long> entry = it.next();
+			long due = entry.getValue();
+			if (due <= now) {
+				HighChartJS chart = entry.getKey();
+				ids.push(chart.getJSChartName());
+				widthOffsets.push(chart.getWidthOffset());
+				heightOffsets.push(chart.getHeightOffset());
+				charts.add(chart);
+				it.remove();
+			} else if (next == 0 || due < next) {
+				next = due;
+			}
+		}
+		if (ids.length() > 0) {
+			this.requestResize(charts.toArray(new HighChartJS[charts.size()]), ids, widthOffsets, heightOffsets);
+		}
+		if (next != 0) {
+			this.scheduleTimer(next);
+		}
+	}
+
+	/*
+	 * Invoked at the next animation frame.
+	 */
+	private void resize(final HighChartJS[] charts, final JsArrayString ids,
+			final JsArrayInteger widthOffsets, final JsArrayInteger heightOffsets) {
+		double start = Duration.currentTimeMillis();
+		this.resizeCharts(ids, widthOffsets, heightOffsets);
+		RenderStats.get().resized(charts, Duration.currentTimeMillis() - start);
+	}
+
+	private native void requestResize(final HighChartJS[] charts, final JsArrayString ids,
+			final JsArrayInteger widthOffsets, final JsArrayInteger heightOffsets) /*-{
+		var self = this;
+		$wnd.requestChartFrame($entry(function() {
+			self.@org.gxt.adapters.highcharts.widgets.ResizeScheduler::resize([Lorg/gxt/adapters/highcharts/codegen/types/HighChartJS;Lcom/google/gwt/core/client/JsArrayString;Lcom/google/gwt/core/client/JsArrayInteger;Lcom/google/gwt/core/client/JsArrayInteger;)(charts, ids, widthOffsets, heightOffsets);
+		}));
+	}-*/;
+
+	private native void resizeCharts(final JsArrayString ids, final JsArrayInteger widthOffsets, final JsArrayInteger heightOffsets) /*-{
+		$wnd.resizeCharts(ids, widthOffsets, heightOffsets);
+	}-*/;
+}
@@ -0,0 +1,48 @@
+/****************************************************************************
+ *  This software is part of the HighchartsJS adapters for Ext GWT.
+ ****************************************************************************
+ * This library is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this library.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ ****************************************************************************
+ * Filename: ScriptRenderer.java
+ ****************************************************************************
+ * @author <a href="mailto:daniele.strollo@gmail.com">Daniele Strollo</a>
+ ***************************************************************************/
+
+package org.gxt.adapters.highcharts.widgets;
+
+import org.gxt.adapters.highcharts.codegen.types.ChartRenderer;
+import org.gxt.adapters.highcharts.codegen.types.HighChartJS;
+
+/**
+ * Renders the charts of the widgets by generating their script and
+ * evaluating it inside the container (see {@link HighChart#setObjectRendering(boolean)}),
+ * as done by {@link HighChartJS} without a renderer, but measuring
+ * the rendering (see {@link RenderStats}).
+ * @author Daniele Strollo
+ */
+final class ScriptRenderer implements ChartRenderer {
+	private static final ScriptRenderer INSTANCE = new ScriptRenderer();
+
+	private ScriptRenderer() {
+	}
+
+	static ScriptRenderer get() {
+		return INSTANCE;
+	}
+
+	public void render(final HighChartJS chart) {
+		RenderBatch.get().renderNow(chart, this);
+	}
+}
@@ -0,0 +1,52 @@
+/****************************************************************************
+ *  This software is part of the HighchartsJS adapters for Ext GWT.
+ ****************************************************************************
+ * This library is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this library.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ ****************************************************************************
+ * Filename: ZoomDataProvider.java
+ ****************************************************************************
+ * @author <a href="mailto:daniele.strollo@gmail.com">Daniele Strollo</a>
+ ***************************************************************************/
+
+package org.gxt.adapters.highcharts.widgets;
+
+import org.gxt.adapters.highcharts.codegen.types.SeriesData;
+import org.gxt.adapters.highcharts.codegen.types.SeriesType;
+import com.google.gwt.user.client.rpc.AsyncCallback;
+
+/**
+ * Loads the points of a series for the range zoomed by the user
+ * (see {@link HighChart#setZoomDataProvider(SeriesType, ZoomDataProvider)}),
+ * so that the chart can be rendered with a small overview of the series
+ * and the detail is requested only when needed.
+ * @author Daniele Strollo
+ */
+public interface ZoomDataProvider {
+	/**
+	 * Invoked after each change of the visible x range (the zoom selected
+	 * by the user, but also panning, the navigator, the range selector or
+	 * the extremes set by code), once it stops changing. The loaded points replace the
+	 * ones shown by the series until the zoom is reset; the responses
+	 * arriving after a newer zoom are discarded.
+	 * @param series the series whose points are requested.
+	 * @param from the lowest visible x.
+	 * @param to the highest visible x.
+	 * @param maxPoints the width of the plot (in pixels), i.e. the number
+	 * of points beyond which the detail is not visible.
+	 * @param callback receives the points of the range (a failure
+	 * leaves the points shown).
+	 */
+	void load(SeriesType series, double from, double to, int maxPoints, AsyncCallback<SeriesData> callback);
+}
@@ -0,0 +1,109 @@
+/****************************************************************************
+ *  This software is part of the HighchartsJS adapters for Ext GWT.
+ ****************************************************************************
+ * This library is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this library.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ ****************************************************************************
+ * Filename: ZoomLoader.java
+ ****************************************************************************
+ * @author <a href="mailto:daniele.strollo@gmail.com">Daniele Strollo</a>
+ ***************************************************************************/
+
+package org.gxt.adapters.highcharts.widgets;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Map.Entry;
+
+import org.gxt.adapters.highcharts.codegen.types.HighChartJS;
+import org.gxt.adapters.highcharts.codegen.types.SeriesData;
+import org.gxt.adapters.highcharts.codegen.types.SeriesType;
+import com.google.gwt.core.client.GWT;
+import com.google.gwt.user.client.rpc.AsyncCallback;
+
+/**
+ * Receives the changes of the visible x range of a chart and replaces the points
+ * of its series with the ones loaded by their {@link ZoomDataProvider}.
+ * When the zoom is reset the series show again their own points.
+ * @author Daniele Strollo
+ */
+final class ZoomLoader {
+	private HighChartJS chartJS = null;
+	private Map<SeriesType, ZoomDataProvider> providers = new LinkedHashMap<SeriesType, ZoomDataProvider>();
+	// incremented at each zoom, the responses of the previous ones are discarded
+	private int request = 0;
+
+	ZoomLoader(final HighChartJS chartJS) {
+		this.chartJS = chartJS;
+	}
+
+	/**
+	 * @param provider null to remove the one of the series.
+	 */
+	void setProvider(final SeriesType series, final ZoomDataProvider provider) {
+		if (provider != null) {
+			this.providers.put(series, provider);
+		} else {
+			this.providers.remove(series);
+		}
+	}
+
+	/**
+	 * Starts receiving the zooms of the chart (also after it is rendered again).
+	 */
+	void watch() {
+		this.watch(this.chartJS.getJSChartName());
+	}
+
+	void unwatch() {
+		this.request++;
+		this.unwatch(this.chartJS.getJSChartName());
+	}
+
+	/*
+	 * Invoked by gxt-adapter.js, from and to are NaN if the zoom has been reset.
+	 */
+	private void onZoom(final double from, final double to, final int width) {
+		final int current = ++this.request;
+		for (Entry<SeriesType, ZoomDataProvider> entry : this.providers.entrySet()) {
+			final SeriesType series = entry.getKey();
+			if (Double.isNaN(from) || Double.isNaN(to)) {
+				this.chartJS.showData(series, null);
+				continue;
+			}
+			entry.getValue().load(series, from, to, width, new AsyncCallback<SeriesData>() {
+				public void onSuccess(final SeriesData result) {
+					if (current == request && result != null) {
+						chartJS.showData(series, result);
+					}
+				}
+
+				public void onFailure(final Throwable caught) {
+					GWT.log("Zoom data not loaded for series " + series.getName(), caught);
+				}
+			});
+		}
+	}
+
+	private native void watch(final String chartId) /*-{
+		var self = this;
+		$wnd.watchChartZoom(chartId, $entry(function(from, to, width) {
+			self.@org.gxt.adapters.highcharts.widgets.ZoomLoader::onZoom(DDI)(from, to, width || 0);
+		}));
+	}-*/;
+
+	private native void unwatch(final String chartId) /*-{
+		$wnd.unwatchChartZoom(chartId);
+	}-*/;
+}